@@ -0,0 +1,114 @@
+package locky.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javafx.application.Platform;
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+
+import locky.app.DialogBox;
+
+/**
+ * Measures building the dialog boxes for a burst of {@link #BURST} responses,
+ * comparing the programmatic {@code Locky.app.DialogBox} with loading each box
+ * from the FXML layout it used to be read from. A frozen copy of that layout
+ * sits next to this class as {@code LegacyDialogBox.fxml}; it is a fixture of
+ * this benchmark only and the app does not ship it.
+ *
+ * <p>Starts the JavaFX toolkit, so it needs a display (or Monocle) to run.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DialogBoxBenchmark {
+    private static final int BURST = 1000;
+    private static final String LEGACY_LAYOUT = "LegacyDialogBox.fxml";
+    private static final String RESPONSE = "Got it. I've added this task:\n"
+            + "  [D][ ] submit report (by: Dec 02 2019, 6:00PM)\nNow you have 42 tasks in the list.";
+
+    private Image avatar;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        try {
+            Platform.startup(() -> {});
+        } catch (IllegalStateException alreadyStarted) {
+            // toolkit left running by an earlier benchmark in this JVM
+        }
+        avatar = new Image(getClass().getResourceAsStream("/images/Locky.png"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Platform.exit();
+    }
+
+    @Benchmark
+    public List<Node> programmaticBurst() {
+        List<Node> boxes = new ArrayList<>(BURST);
+        for (int i = 0; i < BURST; i++) {
+            boxes.add(DialogBox.getLockyDialog(RESPONSE, avatar));
+        }
+        return boxes;
+    }
+
+    @Benchmark
+    public List<Node> fxmlBurst() {
+        List<Node> boxes = new ArrayList<>(BURST);
+        for (int i = 0; i < BURST; i++) {
+            boxes.add(loadFromFxml(RESPONSE, avatar));
+        }
+        return boxes;
+    }
+
+    private HBox loadFromFxml(String text, Image img) {
+        FxmlBox controller = new FxmlBox();
+        HBox root = new HBox();
+        FXMLLoader loader = new FXMLLoader(DialogBoxBenchmark.class.getResource(LEGACY_LAYOUT));
+        loader.setController(controller);
+        loader.setRoot(root);
+        try {
+            loader.load();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        controller.dialog.setText(text);
+        controller.displayPicture.setImage(img);
+        return root;
+    }
+
+    /**
+     * Receives the nodes the FXML layout names, as {@code Locky.app.DialogBox} used to.
+     */
+    public static class FxmlBox {
+        @FXML
+        private Label dialog;
+        @FXML
+        private ImageView displayPicture;
+    }
+}
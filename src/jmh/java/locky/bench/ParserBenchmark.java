@@ -0,0 +1,53 @@
+package locky.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import locky.commands.Command;
+import locky.error.LockyException;
+import locky.utils.Parser;
+
+/**
+ * Measures command-line parsing, including deadline and event argument parsing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    private static final String TODO_LINE = "todo buy milk and bread";
+    private static final String MARK_LINE = "  mark 42 ";
+    private static final String DEADLINE_ARGS = "submit report /by 2019-12-02 1800";
+    private static final String EVENT_ARGS = "team sync /from 2019-12-02 0900 /to 2019-12-02 1000";
+
+    @Benchmark
+    public Command parseTodo() throws LockyException {
+        return Parser.parse(TODO_LINE);
+    }
+
+    @Benchmark
+    public Command parseMark() throws LockyException {
+        return Parser.parse(MARK_LINE);
+    }
+
+    @Benchmark
+    public Parser.ParsedDeadline parseDeadlineArgs() throws LockyException {
+        return Parser.parseDeadlineArgs(DEADLINE_ARGS);
+    }
+
+    @Benchmark
+    public Parser.ParsedEvent parseEventArgs() throws LockyException {
+        return Parser.parseEventArgs(EVENT_ARGS);
+    }
+}
@@ -0,0 +1,109 @@
+package locky.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import locky.tasks.Deadline;
+import locky.tasks.Event;
+import locky.tasks.Task;
+import locky.tasks.Todo;
+import locky.utils.Storage;
+
+/**
+ * Generates deterministic task lists and storage files for benchmarks.
+ * Tasks cycle through todos, deadlines and events. Events occupy consecutive,
+ * non-overlapping one-hour slots so that the list is valid for {@code addEvent}.
+ */
+public final class TaskDataset {
+    public static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private static final String[] WORDS = {
+        "buy", "milk", "bread", "submit", "report", "team", "sync", "read", "book", "call",
+        "mum", "lab", "cs2103", "project", "meeting", "gym", "fish", "band", "prac", "review"
+    };
+
+    private TaskDataset() {}
+
+    /**
+     * Creates a list of {@code size} tasks from a fixed seed.
+     *
+     * @param size number of tasks.
+     * @return the generated tasks.
+     */
+    public static ArrayList<Task> tasks(int size) {
+        Random random = new Random(2103);
+        ArrayList<Task> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String desc = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            boolean isDone = random.nextInt(4) == 0;
+            switch (i % 3) {
+            case 0:
+                list.add(new Todo(desc, isDone));
+                break;
+            case 1:
+                list.add(new Deadline(desc, isDone, BASE.plusMinutes(random.nextInt(1_000_000))));
+                break;
+            default:
+                list.add(new Event(desc, isDone, eventSlot(i / 3), eventSlot(i / 3).plusMinutes(45)));
+                break;
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Returns the start of the {@code n}-th event slot.
+     *
+     * @param n slot number.
+     * @return the slot's start time.
+     */
+    public static LocalDateTime eventSlot(int n) {
+        return BASE.plusHours(n);
+    }
+
+    /**
+     * Writes {@code size} generated tasks to a fresh storage file in a temporary directory.
+     *
+     * @param size number of tasks.
+     * @return path of the written file.
+     * @throws IOException if the file cannot be written.
+     */
+    public static Path writeFile(int size) throws IOException {
+        Path dir = Files.createTempDirectory("locky-bench");
+        Path file = dir.resolve("locky.txt");
+        new Storage(file.toString()).save(tasks(size));
+        return file;
+    }
+
+    /**
+     * Creates a storage that reads from {@code path} but never writes, so that
+     * mutation benchmarks measure in-memory work only.
+     *
+     * @param path the file to load from.
+     * @return a read-only storage.
+     */
+    public static Storage readOnlyStorage(String path) {
+        return new Storage(path) {
+            @Override
+            public void save(List<Task> list) {
+            }
+
+            @Override
+            public void saveAdded(List<Task> list, Task added) {
+            }
+
+            @Override
+            public void saveUpdated(List<Task> list, int index) {
+            }
+
+            @Override
+            public void saveDeleted(List<Task> list, int index) {
+            }
+        };
+    }
+}
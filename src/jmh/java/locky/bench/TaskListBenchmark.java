@@ -0,0 +1,86 @@
+package locky.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import locky.error.LockyException;
+import locky.tasks.TaskList;
+
+/**
+ * Measures in-memory task list operations: find and the clash check done by
+ * {@code addEvent}. Storage writes are disabled so that only list work is timed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskListBenchmark {
+    @Param({"1000", "100000"})
+    private int size;
+
+    private Path file;
+    private TaskList list;
+    private LocalDateTime clashStart;
+    private LocalDateTime freeStart;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = TaskDataset.writeFile(size);
+        list = new TaskList(TaskDataset.readOnlyStorage(file.toString()));
+        int events = size / 3;
+        clashStart = TaskDataset.eventSlot(events / 2).plusMinutes(10);
+        freeStart = TaskDataset.eventSlot(events + 10);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(file.getParent());
+    }
+
+    @Benchmark
+    public String findCommonWord() {
+        return list.formatFindResults("milk");
+    }
+
+    @Benchmark
+    public String findRareWord() {
+        return list.formatFindResults("cs2103 AND gym");
+    }
+
+    @Benchmark
+    public boolean addEventClashing() throws IOException {
+        try {
+            list.addEvent("clash", clashStart, clashStart.plusMinutes(30));
+            return false;
+        } catch (LockyException e) {
+            return true;
+        }
+    }
+
+    @Benchmark
+    public int addEventThenDelete() throws IOException, LockyException {
+        list.addEvent("free", freeStart, freeStart.plusMinutes(30));
+        list.delete(list.getSize());
+        return list.getSize();
+    }
+}
@@ -0,0 +1,68 @@
+package locky.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import locky.tasks.TaskList;
+
+/**
+ * Measures a substring find, whose cost is a scan of the whole token vocabulary,
+ * with the search index forced sequential or forced parallel. Every generated
+ * task adds one token, so the vocabulary grows with {@code size}; where the two
+ * modes cross is what {@code locky.find.parallelThreshold} should be set to.
+ *
+ * <p>The property is read once, when the index class loads, so it is set in
+ * the trial setup of each fork before the first find. On a single core the
+ * index stays sequential whatever the property says.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextIndexBenchmark {
+    @Param({"4096", "16384", "65536", "262144"})
+    private int size;
+
+    @Param({"sequential", "parallel"})
+    private String mode;
+
+    private Path file;
+    private TaskList list;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        System.setProperty("locky.find.parallelThreshold",
+                mode.equals("parallel") ? "1" : Integer.toString(Integer.MAX_VALUE));
+        file = TaskDataset.writeFile(size);
+        list = new TaskList(TaskDataset.readOnlyStorage(file.toString()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(file.getParent());
+    }
+
+    @Benchmark
+    public int findSubstring() {
+        return list.findIndices("99").length;
+    }
+}
@@ -0,0 +1,18 @@
+package locky.app;
+
+import javafx.scene.image.Image;
+
+/**
+ * Holds the avatar images, decoded once and shared by every dialog box and window.
+ * The images load when this class is first used, after the JavaFX toolkit has started.
+ */
+final class Avatars {
+    static final Image USER = load("/images/User.png");
+    static final Image LOCKY = load("/images/Locky.png");
+
+    private Avatars() {}
+
+    private static Image load(String path) {
+        return new Image(Avatars.class.getResourceAsStream(path));
+    }
+}
@@ -0,0 +1,204 @@
+package locky.app;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents the chat history shown in the main window. Only the newest
+ * messages are kept in the visible list; older ones are moved to a scratch
+ * file and read back, newest first, when the user scrolls up.
+ *
+ * <p>The visible list is a contiguous run of the conversation, so the archive
+ * works as a stack: evicting pushes the oldest visible messages, and loading
+ * pops the ones just before the visible run. Popping truncates the file, so it
+ * only ever holds messages that are not on screen.</p>
+ *
+ * <p>If the archive fails, a notice from Locky is shown in the transcript where
+ * the lost messages would be, and the messages it could not keep are dropped.</p>
+ */
+public class ChatTranscript implements AutoCloseable {
+    /**
+     * Holds one chat message.
+     *
+     * @param text the message text.
+     * @param isFromUser whether the user sent it, as opposed to Locky.
+     */
+    public record Message(String text, boolean isFromUser) {}
+
+    private final List<Message> visible;
+    private final int maxVisible;
+    private final int evictBatch;
+    private File archiveFile;
+    private RandomAccessFile archive;
+    private long[] offsets = new long[64];
+    private int archived;
+
+    /**
+     * Creates a transcript that keeps at most {@code maxVisible} messages in {@code visible}.
+     *
+     * @param visible the list shown on screen, typically a {@code ListView}'s items.
+     * @param maxVisible the number of messages to keep in memory.
+     * @param evictBatch how many messages to archive at once when the limit is passed.
+     */
+    public ChatTranscript(List<Message> visible, int maxVisible, int evictBatch) {
+        assert evictBatch > 0 && evictBatch <= maxVisible : "evict batch must fit in the visible list";
+        this.visible = visible;
+        this.maxVisible = maxVisible;
+        this.evictBatch = evictBatch;
+    }
+
+    /**
+     * Appends messages after the newest one, archiving the oldest visible
+     * messages if the list grows past its limit.
+     *
+     * @param messages the messages to append, in order.
+     */
+    public void add(Message... messages) {
+        visible.addAll(Arrays.asList(messages));
+        if (visible.size() > maxVisible) {
+            int evicted = Math.max(evictBatch, visible.size() - maxVisible);
+            List<Message> oldest = visible.subList(0, evicted);
+            String problem = archive(oldest);
+            oldest.clear();
+            if (problem != null) {
+                visible.add(0, notice("Could not archive older messages, so they were dropped: " + problem));
+            }
+        }
+    }
+
+    /**
+     * Replaces a visible message, found by identity, such as a placeholder
+     * waiting for a reply. If the message has been archived in the meantime,
+     * the replacement is appended instead.
+     *
+     * @param old the message to replace.
+     * @param replacement the message to show in its place.
+     */
+    public void replace(Message old, Message replacement) {
+        for (int i = visible.size() - 1; i >= 0; i--) {
+            if (visible.get(i) == old) {
+                visible.set(i, replacement);
+                return;
+            }
+        }
+        add(replacement);
+    }
+
+    /**
+     * Moves up to {@code count} archived messages back in front of the visible ones.
+     * If the archive cannot be read, the rest of it is dropped and a notice is
+     * shown in front instead.
+     *
+     * @param count the maximum number of messages to restore.
+     * @return the number of messages restored.
+     */
+    public int loadOlder(int count) {
+        int restoring = Math.min(count, archived);
+        if (restoring == 0) {
+            return 0;
+        }
+        List<Message> older = new ArrayList<>(restoring);
+        try {
+            for (int i = 0; i < restoring; i++) {
+                archive.seek(offsets[archived - 1]);
+                older.add(readMessage());
+                archive.setLength(offsets[archived - 1]);
+                archived--;
+            }
+        } catch (IOException e) {
+            older.add(notice("Could not read older messages: " + e.getMessage()));
+            archived = 0;
+        }
+        Collections.reverse(older);
+        visible.addAll(0, older);
+        return older.size();
+    }
+
+    public boolean hasOlder() {
+        return archived > 0;
+    }
+
+    File getArchiveFile() {
+        return archiveFile;
+    }
+
+    /**
+     * Closes and deletes the archive file. Archived messages are lost.
+     */
+    @Override
+    public void close() {
+        if (archive == null) {
+            return;
+        }
+        try {
+            archive.close();
+            Files.deleteIfExists(archiveFile.toPath());
+        } catch (IOException e) {
+            visible.add(notice("Could not delete chat archive " + archiveFile + ": " + e.getMessage()));
+        }
+        archive = null;
+        archiveFile = null;
+        archived = 0;
+    }
+
+    /**
+     * Appends messages to the archive.
+     *
+     * @return null on success, otherwise what went wrong; the archive is then
+     *         left as it was before the call and the messages are not kept.
+     */
+    private String archive(List<Message> messages) {
+        int before = archived;
+        try {
+            if (archive == null) {
+                archiveFile = File.createTempFile("locky-chat", ".bin");
+                archiveFile.deleteOnExit();
+                archive = new RandomAccessFile(archiveFile, "rw");
+            }
+            long start = archive.length();
+            archive.seek(start);
+            try {
+                for (Message m : messages) {
+                    if (archived == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, archived * 2);
+                    }
+                    offsets[archived++] = archive.getFilePointer();
+                    writeMessage(m);
+                }
+            } catch (IOException e) {
+                archived = before;
+                archive.setLength(start);
+                throw e;
+            }
+            return null;
+        } catch (IOException e) {
+            archived = before;
+            return e.getMessage();
+        }
+    }
+
+    private static Message notice(String text) {
+        return new Message("(" + text + ")", false);
+    }
+
+    private void writeMessage(Message m) throws IOException {
+        byte[] text = m.text().getBytes(StandardCharsets.UTF_8);
+        archive.writeBoolean(m.isFromUser());
+        archive.writeInt(text.length);
+        archive.write(text);
+    }
+
+    private Message readMessage() throws IOException {
+        boolean isFromUser = archive.readBoolean();
+        byte[] text = new byte[archive.readInt()];
+        archive.readFully(text);
+        return new Message(new String(text, StandardCharsets.UTF_8), isFromUser);
+    }
+}
@@ -1,28 +1,43 @@
 package locky.app;
 
-import java.io.IOException;
 import java.util.Collections;
 
+import javafx.beans.binding.Bindings;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
+import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.Label;
+import javafx.scene.effect.DropShadow;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
 
 /**
  * Represents a dialog box consisting of an ImageView to represent the speaker's face
  * and a label containing text from the speaker.
+ *
+ * <p>The nodes are built in code rather than loaded from FXML, so a new box costs a
+ * handful of allocations instead of parsing XML and reflecting on this class. The
+ * bubble's shadow is shared by every box, and callers pass in shared avatar images.</p>
  */
 public class DialogBox extends HBox {
-    @FXML
-    private Label dialog;
-    @FXML
-    private ImageView displayPicture;
+    private static final String BUBBLE_STYLE = "-fx-background-color: #e9eef5; -fx-background-radius: 14; "
+            + "-fx-padding: 10 12 10 12; -fx-text-fill: #1f2937; -fx-font-size: 13px;";
+    private static final String TIMESTAMP_STYLE = "-fx-text-fill: #5b6777; -fx-font-size: 11px;";
+    private static final String TRANSPARENT_STYLE = "-fx-background-color: transparent;";
+    private static final double AVATAR_SIZE = 100.0;
+    private static final DropShadow BUBBLE_SHADOW = new DropShadow(3, 0, 1, Color.web("#00000022"));
+
+    private final Label dialog = new Label();
+    private final ImageView displayPicture = new ImageView();
+
+    private boolean isFlipped;
 
     /**
      * Constructs a dialog box with specified message text and avatar image.
@@ -31,34 +46,82 @@ public class DialogBox extends HBox {
      * @param img speaker's avatar image.
      */
     private DialogBox(String text, Image img) {
-        try {
-            FXMLLoader fxmlLoader = new FXMLLoader(MainWindow.class.getResource("/view/DialogBox.fxml"));
-            fxmlLoader.setController(this);
-            fxmlLoader.setRoot(this);
-            fxmlLoader.load();
-            // allow bubble to grow in width
-            dialog.maxWidthProperty().bind(
-                    javafx.beans.binding.Bindings.min(
-                            this.widthProperty().multiply(0.7), // use 70% of available row width
-                            600
-                    )
-            );
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        this();
+        dialog.setText(text);
+        displayPicture.setImage(img);
+    }
+
+    /**
+     * Constructs an empty dialog box, to be filled in by {@link #show(String, Image, boolean)}.
+     */
+    DialogBox() {
+        super(10);
+        setAlignment(Pos.TOP_RIGHT);
+        setPrefWidth(400.0);
+        setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
+        setPadding(new Insets(12.0, 10.0, 12.0, 10.0));
+
+        dialog.setWrapText(true);
+        dialog.setMinHeight(USE_PREF_SIZE);
+        dialog.setStyle(BUBBLE_STYLE);
+        dialog.setEffect(BUBBLE_SHADOW);
+        // allow bubble to grow in width
+        dialog.maxWidthProperty().bind(
+                Bindings.min(
+                        this.widthProperty().multiply(0.7), // use 70% of available row width
+                        600
+                )
+        );
+
+        Label timestamp = new Label("21:12");
+        timestamp.setStyle(TIMESTAMP_STYLE);
+        timestamp.setOpacity(0.8);
 
+        VBox bubble = new VBox(6, dialog, timestamp);
+        bubble.setAlignment(Pos.TOP_RIGHT);
+        bubble.setFillWidth(false);
+        bubble.setStyle(TRANSPARENT_STYLE);
+        bubble.setPadding(new Insets(0, 0, 0, 6));
+
+        displayPicture.setFitHeight(AVATAR_SIZE);
+        displayPicture.setFitWidth(AVATAR_SIZE);
+        displayPicture.setPickOnBounds(true);
+        displayPicture.setPreserveRatio(true);
+        StackPane avatar = new StackPane(displayPicture);
+        avatar.setAlignment(Pos.TOP_RIGHT);
+        avatar.setStyle(TRANSPARENT_STYLE);
+        double radius = AVATAR_SIZE / 2;
+        avatar.setClip(new Circle(radius, radius, radius));
+
+        getChildren().addAll(bubble, avatar);
+    }
+
+    /**
+     * Replaces the content of this dialog box, so that a list cell can reuse it
+     * for whichever message it currently shows.
+     *
+     * @param text message to display in dialog box.
+     * @param img speaker's avatar image.
+     * @param isFromUser whether to lay the box out for the user rather than Locky.
+     */
+    void show(String text, Image img, boolean isFromUser) {
         dialog.setText(text);
         displayPicture.setImage(img);
+        if (isFromUser == isFlipped) {
+            flip();
+        }
     }
 
     /**
-     * Flips the dialog box such that the ImageView is on the left and text on the right.
+     * Flips the dialog box such that the ImageView is on the other side of the text.
+     * The first flip puts the ImageView on the left and the text on the right.
      */
     private void flip() {
         ObservableList<Node> tmp = FXCollections.observableArrayList(this.getChildren());
         Collections.reverse(tmp);
         getChildren().setAll(tmp);
-        setAlignment(Pos.TOP_LEFT);
+        isFlipped = !isFlipped;
+        setAlignment(isFlipped ? Pos.TOP_LEFT : Pos.TOP_RIGHT);
     }
 
     /**
@@ -1,28 +1,139 @@
 package locky.app;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
+import locky.commands.Command;
 import locky.error.LockyException;
+import locky.events.CommandExecuteEvent;
+import locky.events.CommandParseEvent;
+import locky.tasks.ConcurrentTaskList;
 import locky.tasks.TaskList;
+import locky.utils.Metrics;
 import locky.utils.Parser;
 import locky.utils.Storage;
 
 /**
  * Main entry point and controller for the Locky chatbot.
+ * {@link #main(String[])} runs it on standard input and output without
+ * touching JavaFX; the GUI starts from {@code Locky.app.Launcher} instead.
  */
 public class Locky {
+    static final String DEFAULT_FILE_PATH = "./data/locky.txt";
+
+    private static final String LINE = "_".repeat(60);
+    private static final String LOGO = """
+                 __________
+                / .------. \\
+               / /        \\ \\
+              _| |________| |_
+            .' |_|        |_| '.
+            '._____ ____ _____.'
+            |     .'    '.     |
+            '.  .'.      .'.  .'
+            '       LOCKY      '
+            |   '. .    . .'   |
+            '.________________.'
+            """;
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+
     private final TaskList list;
 
     /**
      * Creates a new Locky.app.Locky instance using the specified file path
-     * for persistent storage of tasks.
+     * for persistent storage of tasks. With {@code -Dlocky.concurrent=true}
+     * the tasks are kept in a list that can be shared between threads.
      *
      * @param filePath the file path where tasks are stored and loaded.
      */
     public Locky(String filePath) {
         assert filePath != null && !filePath.isBlank() : "filePath must be non-empty";
-        Storage storage = new Storage(filePath);
-        this.list = new TaskList(storage);
+        Storage storage = Storage.open(filePath);
+        this.list = Boolean.getBoolean("locky.concurrent") ? new ConcurrentTaskList(storage) : new TaskList(storage);
+    }
+
+    /**
+     * Runs Locky as a text REPL on standard input and output. Each input line
+     * is answered in turn until {@code bye} or the end of input.
+     * With {@code -n} or {@code --non-interactive} the logo and greeting are
+     * left out and output is only flushed when the buffer fills or input ends,
+     * which suits shell pipelines. Tasks are stored in {@code ./data/locky.txt}
+     * unless a file path is given.
+     *
+     * @param args {@code [-n | --non-interactive] [file]}.
+     * @throws IOException if standard input or output fails.
+     */
+    public static void main(String[] args) throws IOException {
+        boolean isInteractive = true;
+        String filePath = DEFAULT_FILE_PATH;
+        for (String arg : args) {
+            if (arg.equals("-n") || arg.equals("--non-interactive")) {
+                isInteractive = false;
+            } else {
+                filePath = arg;
+            }
+        }
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8),
+                IO_BUFFER_SIZE);
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out),
+                StandardCharsets.UTF_8), IO_BUFFER_SIZE);
+        new Locky(filePath).runRepl(in, out, isInteractive);
+    }
+
+    /**
+     * Answers each line of {@code in} on {@code out}, framed by separator lines,
+     * until {@code bye} or the end of input. Pending saves are flushed either way,
+     * and a batch left open is reported, since its changes are never saved.
+     *
+     * @param in the user input, one command per line.
+     * @param out where responses are written; flushed after each one only if interactive.
+     * @param isInteractive whether to show the greeting and flush after every response.
+     * @throws IOException if reading or writing fails.
+     */
+    void runRepl(BufferedReader in, Writer out, boolean isInteractive) throws IOException {
+        if (isInteractive) {
+            out.write(LOGO);
+            out.write(LINE + "\n" + getGreeting() + "\n" + LINE + "\n");
+            out.flush();
+        }
+        Appendable sink = new UncheckedSink(out);
+        String line;
+        while ((line = in.readLine()) != null) {
+            boolean isBye = Objects.equals(line, "bye");
+            if (!isBye) {
+                out.write("\n");
+            }
+            try {
+                writeResponse(line, sink);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (isBye) {
+                out.write(LINE + "\n\n");
+                out.flush();
+                return;
+            }
+            out.write("\n" + LINE + "\n");
+            if (isInteractive) {
+                out.flush();
+            }
+        }
+        out.write(getOpenBatchWarning());
+        try {
+            list.flush();
+        } catch (IOException ioe) {
+            out.write("(Warning: failed to save: " + ioe.getMessage() + ")\n");
+        }
+        out.flush();
     }
 
     /**
@@ -41,37 +152,176 @@ public class Locky {
      * a String response by Locky.
      *
      * @param input String.
-     * @return String response retrieved from handleLineToString.
+     * @return String response retrieved from writeResponse.
      */
     public String getResponse(String input) {
+        StringBuilder sb = new StringBuilder();
+        writeResponse(input, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Writes Locky's response to a line of user input to {@code out}. Long
+     * replies such as a full {@code list} are written as they are produced.
+     *
+     * @param input the line of user input.
+     * @param out where the response is written; it may only fail unchecked.
+     */
+    private void writeResponse(String input, Appendable out) {
         assert input != null : "input must not be null";
 
-        if (Objects.equals(input, "bye")) {
-            return "You better Lock In!\n";
+        try {
+            if (Objects.equals(input, "bye")) {
+                String warning = getOpenBatchWarning();
+                try {
+                    list.flush();
+                } catch (java.io.IOException ioe) {
+                    warning += "(Warning: failed to save: " + ioe.getMessage() + ")\n";
+                }
+                out.append(warning).append("You better Lock In!\n");
+                return;
+            }
+
+            try {
+                handleLine(input, out);
+            } catch (LockyException e) {
+                out.append(e.getMessage()).append("\n");
+            } catch (UncheckedIOException e) {
+                throw e;
+            } catch (Exception e) {
+                out.append("Unexpected error: ").append(e.getMessage()).append("\n");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // out only fails unchecked
         }
+    }
 
-        try {
-            return handleLineToString(input);
-        } catch (LockyException e) {
-            return e.getMessage() + "\n";
-        } catch (Exception e) {
-            return "Unexpected error: " + e.getMessage() + "\n";
+    /**
+     * Returns a warning if a batch is still in progress, or an empty string.
+     *
+     * @return the warning line, ending in a newline, or "".
+     */
+    private String getOpenBatchWarning() {
+        if (!list.isInBatch()) {
+            return "";
         }
+        return "(Warning: a batch was still open; its " + list.getBatchChangeCount()
+                + " change(s) were not saved.)\n";
     }
 
     /**
      * Parses and executes a single line of user input as a Locky command.
+     * If the command fails in any way after changing tasks in a batch in
+     * progress, the batch is rolled back. Lines that do not parse, and commands
+     * that fail before changing anything, such as a second {@code begin} or
+     * {@code mark 99}, leave it open, and the reply says so.
      *
      * @param taskString raw user input.
-     * @return formatted string containing Locky's response to the command.
+     * @param out where Locky's response to the command is written.
      * @throws LockyException if arguments are empty or invalid.
+     * @throws IOException never in practice, as {@code out} only fails unchecked.
      */
-    private String handleLineToString(String taskString) throws LockyException {
-        var cmd = Parser.parse(taskString);
+    private void handleLine(String taskString, Appendable out) throws LockyException, IOException {
+        int changesBefore = list.getBatchChangeCount();
         try {
-            return cmd.execute(list);
+            execute(parse(taskString), out);
         } catch (java.io.IOException ioe) {
-            return "(Warning: failed to save: " + ioe.getMessage() + ")\n";
+            out.append("(Warning: failed to save: ").append(ioe.getMessage()).append(")\n");
+        } catch (UncheckedIOException e) {
+            throw e;
+        } catch (LockyException | RuntimeException e) {
+            if (!list.isInBatch()) {
+                throw e;
+            }
+            String problem = e instanceof LockyException ? e.getMessage() : "Unexpected error: " + e.getMessage();
+            int changes = list.getBatchChangeCount();
+            if (changes != changesBefore) {
+                int undone = list.rollbackBatch();
+                throw new LockyException(problem + "\nBatch rolled back: " + undone + " change(s) undone.");
+            }
+            throw new LockyException(problem + "\n(Nothing was undone; the batch is still open with " + changes
+                    + " change(s). Finish it with \"commit\" or \"rollback\".)");
+        }
+    }
+
+    /**
+     * Parses a line into a command, timing it in {@code Locky.utils.Metrics} and
+     * reporting it as a {@code CommandParseEvent} to a running flight recording.
+     */
+    private static Command parse(String input) throws LockyException {
+        CommandParseEvent event = new CommandParseEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean isSuccessful = false;
+        try {
+            Command cmd = Parser.parse(input);
+            isSuccessful = true;
+            return cmd;
+        } finally {
+            Metrics.recordSince("parse", start);
+            if (!isSuccessful) {
+                Metrics.count("parse.errors", 1);
+            }
+            event.commit(input.length(), isSuccessful);
+        }
+    }
+
+    /**
+     * Executes a command, writing its reply to {@code out}, timing it in
+     * {@code Locky.utils.Metrics} under its class name and reporting it as a
+     * {@code CommandExecuteEvent} to a running flight recording.
+     */
+    private void execute(Command cmd, Appendable out) throws LockyException, java.io.IOException {
+        CommandExecuteEvent event = new CommandExecuteEvent();
+        event.begin();
+        String timer = "command." + cmd.getClass().getSimpleName();
+        long start = System.nanoTime();
+        boolean isSuccessful = false;
+        try {
+            cmd.execute(list, out);
+            isSuccessful = true;
+        } finally {
+            Metrics.recordSince(timer, start);
+            if (!isSuccessful) {
+                Metrics.count(timer + ".errors", 1);
+            }
+            event.commit(cmd.getClass(), isSuccessful);
+        }
+    }
+
+    /**
+     * Passes output on to a writer, turning its failures into an
+     * {@code UncheckedIOException} so they are not taken for failed saves.
+     */
+    private record UncheckedSink(Writer out) implements Appendable {
+        @Override
+        public Appendable append(CharSequence csq) {
+            try {
+                out.append(csq);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            try {
+                out.append(csq, start, end);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) {
+            try {
+                out.append(c);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
         }
     }
 }
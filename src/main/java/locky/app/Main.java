@@ -3,14 +3,13 @@ package locky.app;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
-import javafx.scene.image.Image;
 import javafx.stage.Stage;
 
 /**
  * The main class where the app runs.
  */
 public class Main extends Application {
-    private Locky locky = new Locky("./data/locky.txt");
+    private Locky locky = new Locky(Locky.DEFAULT_FILE_PATH);
 
     /**
      * Starts the stage.
@@ -26,7 +25,7 @@ public class Main extends Application {
         controller.setLocky(locky);
 
         stage.setTitle("Locky — Lock In!");
-        stage.getIcons().add(new Image(getClass().getResourceAsStream("/images/Locky.png")));
+        stage.getIcons().add(Avatars.LOCKY);
         stage.setScene(scene);
         stage.show();
     }
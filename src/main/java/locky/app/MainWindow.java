@@ -1,40 +1,65 @@
 package locky.app;
 
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
-import javafx.scene.image.Image;
+import javafx.scene.control.skin.VirtualFlow;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.VBox;
+
+import locky.app.ChatTranscript.Message;
 
 /**
  * Controller for the main Locky GUI.
+ *
+ * <p>The conversation is shown in a {@code ListView}, which only creates dialog
+ * boxes for the rows on screen and reuses them while scrolling. The newest
+ * {@link #MAX_VISIBLE_MESSAGES} messages are kept in memory; scrolling up past
+ * the oldest of them brings earlier ones back from the {@link ChatTranscript}.</p>
+ *
+ * <p>Commands run on a single background thread, so a slow command or save never
+ * blocks the window. While a command runs, its reply is shown as a placeholder.
+ * The one worker runs commands in the order they were entered, and
+ * {@code Platform.runLater} delivers replies in the same order.</p>
  */
 public class MainWindow extends AnchorPane {
+    private static final int MAX_VISIBLE_MESSAGES = 200;
+    private static final int EVICT_BATCH = 50;
+    private static final int LOAD_BATCH = 50;
+    private static final String PENDING_REPLY = "...";
+
     @FXML
-    private ScrollPane scrollPane;
-    @FXML
-    private VBox dialogContainer;
+    private ListView<Message> transcriptView;
     @FXML
     private TextField userInput;
     @FXML
     private Button sendButton;
 
     private Locky locky;
-
-    private Image userImage = new Image(this.getClass().getResourceAsStream("/images/User.png"));
-    private Image lockyImage = new Image(this.getClass().getResourceAsStream("/images/Locky.png"));
+    private ChatTranscript transcript;
+    private final ExecutorService commandRunner = Executors.newSingleThreadExecutor(task -> {
+        Thread worker = new Thread(task, "locky-commands");
+        worker.setDaemon(true);
+        return worker;
+    });
 
     /**
      * Initializes the controller after the FXML elements are loaded.
      */
     @FXML
     public void initialize() {
-        scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
+        transcript = new ChatTranscript(transcriptView.getItems(), MAX_VISIBLE_MESSAGES, EVICT_BATCH);
+        transcriptView.setCellFactory(view -> new DialogCell());
+        transcriptView.addEventFilter(ScrollEvent.SCROLL, this::handleScroll);
     }
 
     /**
@@ -42,29 +67,100 @@ public class MainWindow extends AnchorPane {
      */
     public void setLocky(Locky l) {
         locky = l;
-        dialogContainer.getChildren().add(
-                DialogBox.getLockyDialog(locky.getGreeting(), lockyImage)
-        );
+        addMessages(new Message(locky.getGreeting(), false));
     }
 
     /**
-     * Creates two dialog boxes, one echoing user input and the other
-     * containing Locky's reply and then appends them to
-     * the dialog container. Clears the user input after processing.
+     * Echoes user input with a placeholder for Locky's reply, and hands the
+     * input to the command thread. Clears the user input right away, so the
+     * user can keep typing while the command runs. A reply is always posted,
+     * even if the command fails with an error.
      */
     @FXML
     private void handleUserInput() {
         String input = userInput.getText();
-        String response = locky.getResponse(input);
-        dialogContainer.getChildren().addAll(
-                DialogBox.getUserDialog(input, userImage),
-                DialogBox.getLockyDialog(response, lockyImage)
-        );
+        Message pending = new Message(PENDING_REPLY, false);
+        addMessages(new Message(input, true), pending);
         userInput.clear();
 
-        if (Objects.equals(input, "bye")) {
-            Platform.runLater(() -> Platform.exit());
+        boolean isExit = Objects.equals(input, "bye");
+        if (isExit) {
+            userInput.setDisable(true);
+            sendButton.setDisable(true);
         }
+        commandRunner.execute(() -> {
+            String response = "Unexpected error: the command did not finish.\n";
+            try {
+                response = locky.getResponse(input);
+            } finally {
+                // post a reply even if the command threw an Error, so the placeholder
+                // is replaced and "bye" still exits
+                Message reply = new Message(response, false);
+                Platform.runLater(() -> deliverReply(pending, reply, isExit));
+            }
+        });
+    }
+
+    private void deliverReply(Message pending, Message reply, boolean isExit) {
+        transcript.replace(pending, reply);
+        transcriptView.scrollTo(transcriptView.getItems().size() - 1);
+
+        if (isExit) {
+            commandRunner.shutdown();
+            transcript.close();
+            Platform.exit();
+        }
+    }
+
+    private void addMessages(Message... messages) {
+        transcript.add(messages);
+        transcriptView.scrollTo(transcriptView.getItems().size() - 1);
     }
-}
 
+    /**
+     * Brings back earlier messages when the user scrolls up at the top of the list,
+     * keeping the message that was on top in place.
+     */
+    private void handleScroll(ScrollEvent event) {
+        if (event.getDeltaY() <= 0 || !transcript.hasOlder() || !isAtTop()) {
+            return;
+        }
+        int loaded = transcript.loadOlder(LOAD_BATCH);
+        transcriptView.scrollTo(loaded);
+    }
+
+    private boolean isAtTop() {
+        if (!(transcriptView.lookup(".virtual-flow") instanceof VirtualFlow<?> flow)) {
+            return false;
+        }
+        IndexedCell<?> first = flow.getFirstVisibleCell();
+        return first != null && first.getIndex() == 0;
+    }
+
+    /**
+     * Represents a row of the transcript. Each cell owns one dialog box and
+     * refills it for whichever message the list assigns to the cell.
+     */
+    private final class DialogCell extends ListCell<Message> {
+        private final DialogBox box = new DialogBox();
+
+        DialogCell() {
+            setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+            setStyle("-fx-background-color: transparent; -fx-padding: 0;");
+            // leave room for the vertical scroll bar so text wraps instead of scrolling sideways
+            box.prefWidthProperty().bind(transcriptView.widthProperty().subtract(20));
+            box.setMaxWidth(USE_PREF_SIZE);
+        }
+
+        @Override
+        protected void updateItem(Message message, boolean isEmpty) {
+            super.updateItem(message, isEmpty);
+            if (isEmpty || message == null) {
+                setGraphic(null);
+                return;
+            }
+            box.show(message.text(), message.isFromUser() ? Avatars.USER : Avatars.LOCKY, message.isFromUser());
+            setGraphic(box);
+        }
+    }
+}
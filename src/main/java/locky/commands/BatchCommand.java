@@ -0,0 +1,70 @@
+package locky.commands;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import locky.error.LockyException;
+import locky.tasks.TaskList;
+import locky.utils.Parser;
+
+/**
+ * Represents the {@code batch} command.
+ * When executed, it runs every non-blank line of the given file as a
+ * command inside one batch, saving the TaskList once at the end. If any
+ * line fails, or the final save fails, every change made by the file is
+ * rolled back. The file may not control batches itself, so {@code begin},
+ * {@code commit}, {@code rollback} and {@code batch} lines are rejected.
+ */
+public class BatchCommand implements Command {
+    private final String pathArg;
+    public BatchCommand(String pathArg) {
+        this.pathArg = pathArg;
+    }
+
+    @Override
+    public String execute(TaskList list) throws LockyException, IOException {
+        if (pathArg == null || pathArg.isBlank()) {
+            throw new LockyException("Which file to run? e.g., \"batch data/import.txt\"");
+        }
+        Path path = Path.of(pathArg);
+        if (!Files.isRegularFile(path)) {
+            throw new LockyException("No such file: \"" + pathArg + "\".");
+        }
+
+        list.beginBatch();
+        int lineNo = 0;
+        int commands = 0;
+        try (BufferedReader br = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                Command command = Parser.parse(line);
+                if (isBatchControl(command)) {
+                    throw new LockyException("\"" + line.strip() + "\" cannot be used inside a batch file.");
+                }
+                command.execute(list);
+                commands++;
+            }
+            list.commitBatch();
+        } catch (LockyException e) {
+            list.rollbackBatch();
+            throw new LockyException("Line " + lineNo + ": " + e.getMessage()
+                    + "\nBatch rolled back, nothing was saved.");
+        } catch (IOException | RuntimeException e) {
+            list.rollbackBatch();
+            throw e;
+        }
+        return "Ran " + commands + " command(s) from " + pathArg + ", saved once.\n";
+    }
+
+    private static boolean isBatchControl(Command command) {
+        return command instanceof BeginCommand || command instanceof CommitCommand
+                || command instanceof RollbackCommand || command instanceof BatchCommand;
+    }
+}
@@ -0,0 +1,18 @@
+package locky.commands;
+
+import locky.error.LockyException;
+import locky.tasks.TaskList;
+
+/**
+ * Represents the {@code begin} command.
+ * When executed, it starts a batch: following commands change the
+ * TaskList in memory only until {@code commit} saves them in one go.
+ * If a command in the batch fails, the whole batch is rolled back.
+ */
+public class BeginCommand implements Command {
+    @Override
+    public String execute(TaskList list) throws LockyException {
+        list.beginBatch();
+        return "Batch started. Changes will be saved on \"commit\".\n";
+    }
+}
@@ -0,0 +1,23 @@
+package locky.commands;
+
+import locky.error.LockyException;
+import locky.tasks.TaskList;
+import locky.utils.Parser;
+
+/**
+ * Represents the {@code between} command.
+ * When executed, it lists every deadline and event whose time lies
+ * between the two given date/times, earliest first.
+ */
+public class BetweenCommand implements Command {
+    private final String args;
+    public BetweenCommand(String args) {
+        this.args = args;
+    }
+
+    @Override
+    public String execute(TaskList list) throws LockyException {
+        Parser.ParsedWindow pw = Parser.parseBetweenArgs(args);
+        return list.formatBetween(pw.start(), pw.end());
+    }
+}
@@ -0,0 +1,45 @@
+package locky.commands;
+
+import java.util.List;
+
+import locky.tasks.Task;
+
+/**
+ * Formats the reply of a bulk {@code mark}, {@code unmark} or {@code delete}.
+ * Only the first few affected tasks are listed, so that a command touching
+ * thousands of tasks still gets a short reply.
+ */
+final class BulkReply {
+    private static final int MAX_LISTED = 10;
+
+    private BulkReply() {}
+
+    /**
+     * Returns the header followed by the affected tasks, one per line.
+     *
+     * @param header the first line of the reply.
+     * @param tasks the affected tasks.
+     * @return the formatted reply.
+     */
+    static String format(String header, List<Task> tasks) {
+        StringBuilder sb = new StringBuilder(header).append("\n");
+        int listed = Math.min(tasks.size(), MAX_LISTED);
+        for (int i = 0; i < listed; i++) {
+            sb.append(tasks.get(i)).append("\n");
+        }
+        if (tasks.size() > listed) {
+            sb.append("...and ").append(tasks.size() - listed).append(" more.\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the reply for a {@code find:} selection that matched nothing.
+     *
+     * @param query the find query.
+     * @return the formatted reply.
+     */
+    static String noMatches(String query) {
+        return "No tasks match \"" + query + "\", so nothing changed.\n";
+    }
+}
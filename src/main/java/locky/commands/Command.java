@@ -18,4 +18,19 @@ public interface Command {
      * @throws java.io.IOException if persisting the updated TaskList to storage fails.
      */
     String execute(TaskList list) throws LockyException, IOException;
+
+    /**
+     * Executes this command on the given {@link locky.tasks.TaskList}, writing the
+     * message to {@code out}. Commands with long output write it as they go;
+     * the rest write the string from {@link #execute(TaskList)}.
+     *
+     * @param list the TaskList on which to execute the command.
+     * @param out where the message is written.
+     * @throws locky.error.LockyException if the command arguments are invalid.
+     * @throws java.io.IOException if persisting the updated TaskList to storage fails,
+     *         or if writing to {@code out} fails.
+     */
+    default void execute(TaskList list, Appendable out) throws LockyException, IOException {
+        out.append(execute(list));
+    }
 }
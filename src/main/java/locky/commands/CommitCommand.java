@@ -0,0 +1,19 @@
+package locky.commands;
+
+import java.io.IOException;
+
+import locky.error.LockyException;
+import locky.tasks.TaskList;
+
+/**
+ * Represents the {@code commit} command.
+ * When executed, it ends the current batch and saves all of its
+ * changes with a single write.
+ */
+public class CommitCommand implements Command {
+    @Override
+    public String execute(TaskList list) throws LockyException, IOException {
+        int changes = list.commitBatch();
+        return "Batch committed: " + changes + " change(s) saved.\n";
+    }
+}
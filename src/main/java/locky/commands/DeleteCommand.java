@@ -1,31 +1,31 @@
 package locky.commands;
 
 import java.io.IOException;
+import java.util.List;
 
 import locky.error.LockyException;
+import locky.tasks.Task;
 import locky.tasks.TaskList;
 
 /**
  * Represents the {@code delete} command.
  * When executed, it removes the task at the specified index from the TaskList
- * and saves the updated list.
+ * and saves the updated list. Ranges ({@code 1-5}), lists ({@code 2,4,6}) and
+ * {@code find:<query>} select several tasks, which are saved together once.
  */
-public class DeleteCommand implements Command {
-    private final String indexArg;
+public class DeleteCommand extends SelectionCommand {
     public DeleteCommand(String indexArg) {
-        this.indexArg = indexArg;
+        super("delete", indexArg);
     }
 
-    @Override public String execute(TaskList list) throws LockyException, IOException {
-        if (indexArg == null || indexArg.isBlank()) {
-            throw new LockyException("Which task number to delete? e.g., \"delete 2\"");
-        }
-        int idx;
-        try {
-            idx = Integer.parseInt(indexArg);
-        } catch (NumberFormatException e) {
-            throw new LockyException("Not a number: \"" + indexArg + "\". Try \"delete 2\".");
-        }
+    @Override
+    String executeOne(TaskList list, int idx) throws LockyException, IOException {
         return "Ok, so let's just forget that task existed...\n" + list.delete(idx) + "\n";
     }
+
+    @Override
+    String executeAll(TaskList list, int[] indices) throws LockyException, IOException {
+        List<Task> tasks = list.deleteAll(indices);
+        return BulkReply.format("Ok, so let's just forget those " + tasks.size() + " task(s) existed...", tasks);
+    }
 }
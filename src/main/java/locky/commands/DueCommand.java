@@ -0,0 +1,25 @@
+package locky.commands;
+
+import java.time.LocalDateTime;
+
+import locky.error.LockyException;
+import locky.tasks.TaskList;
+import locky.utils.Parser;
+
+/**
+ * Represents the {@code due before} command.
+ * When executed, it lists every deadline and event whose time is
+ * before the given date/time, earliest first.
+ */
+public class DueCommand implements Command {
+    private final String args;
+    public DueCommand(String args) {
+        this.args = args;
+    }
+
+    @Override
+    public String execute(TaskList list) throws LockyException {
+        LocalDateTime before = Parser.parseDueArgs(args);
+        return list.formatDueBefore(before);
+    }
+}
@@ -7,7 +7,9 @@ import locky.tasks.TaskList;
  * Represents the {@code find} command.
  * When executed, it searches the TaskList for tasks whose descriptions
  * contain the specified keyword and returns a
- * formatted list of matches.
+ * formatted list of matches. Keywords can be combined with
+ * {@code AND} and {@code OR}, and {@code word*} matches words
+ * starting with {@code word}.
  */
 public class FindCommand implements Command {
     private final String keyword;
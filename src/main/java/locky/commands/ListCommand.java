@@ -1,21 +1,62 @@
 package locky.commands;
 
+import java.io.IOException;
+
+import locky.error.LockyException;
 import locky.tasks.TaskList;
+import locky.utils.Parser;
 
 /**
  * Represents the {@code list} command.
  * When executed, it prints all tasks currently in the TaskList
- * in a numbered, formatted list.
+ * in a numbered, formatted list, written line by line rather than built
+ * into one string. {@code list page N} and {@code list --limit N} print
+ * only part of it.
  */
 public class ListCommand implements Command {
+    private final String args;
+
+    public ListCommand() {
+        this("");
+    }
+
+    public ListCommand(String args) {
+        this.args = args;
+    }
+
     @Override
-    public String execute(TaskList list) {
-        String message;
+    public String execute(TaskList list) throws LockyException, IOException {
+        StringBuilder sb = new StringBuilder();
+        execute(list, sb);
+        return sb.toString();
+    }
+
+    @Override
+    public void execute(TaskList list, Appendable out) throws LockyException, IOException {
         if (list.isEmpty()) {
-            message = "Looky looky your Locky task list is empty! Time to get started!\n";
-        } else {
-            message = "Oh my, look at all these tasks! Chop chop!\n";
+            out.append("Looky looky your Locky task list is empty! Time to get started!\n");
+            return;
+        }
+        Parser.ParsedPage page = Parser.parseListArgs(args);
+        int total = list.getSize();
+        long from = (long) (page.page() - 1) * page.size();
+        if (from >= total) {
+            long pages = (total + (long) page.size() - 1) / page.size();
+            throw new LockyException("No page " + page.page() + "; there " + (pages == 1 ? "is" : "are")
+                    + " only " + pages + ".");
+        }
+        out.append("Oh my, look at all these tasks! Chop chop!\n");
+        list.writeList(out, (int) from, page.size());
+        int to = (int) Math.min(total, from + page.size());
+        if (from > 0 || to < total) {
+            out.append("(Showing ").append(Long.toString(from + 1)).append("-").append(Integer.toString(to))
+                    .append(" of ").append(Integer.toString(total));
+            if (to < total) {
+                out.append(". Next: \"list page ").append(Integer.toString(page.page() + 1))
+                        .append(page.size() == Parser.DEFAULT_PAGE_SIZE ? "" : " --limit " + page.size())
+                        .append("\"");
+            }
+            out.append(".)\n");
         }
-        return message + list.getListString();
     }
 }
@@ -1,6 +1,7 @@
 package locky.commands;
 
 import java.io.IOException;
+import java.util.List;
 
 import locky.error.LockyException;
 import locky.tasks.Task;
@@ -9,24 +10,16 @@ import locky.tasks.TaskList;
 /**
  * Represents the {@code mark} command.
  * When executed, it marks the task at the specified index in the TaskList
- * as completed, and saves the updated list.
+ * as completed, and saves the updated list. Ranges ({@code 1-5}), lists ({@code 2,4,6})
+ * and {@code find:<query>} select several tasks, which are saved together once.
  */
-public class MarkCommand implements Command {
-    private final String indexArg;
+public class MarkCommand extends SelectionCommand {
     public MarkCommand(String indexArg) {
-        this.indexArg = indexArg;
+        super("mark", indexArg);
     }
 
-    @Override public String execute(TaskList list) throws LockyException, IOException {
-        if (indexArg == null || indexArg.isBlank()) {
-            throw new LockyException("Which task number to mark? e.g., \"mark 2\"");
-        }
-        int idx;
-        try {
-            idx = Integer.parseInt(indexArg);
-        } catch (NumberFormatException e) {
-            throw new LockyException("Not a number: \"" + indexArg + "\". Try \"mark 2\".");
-        }
+    @Override
+    String executeOne(TaskList list, int idx) throws LockyException, IOException {
         boolean wasDone = list.isTaskDone(idx);
         Task t = list.mark(idx);
         String msg = wasDone
@@ -34,4 +27,10 @@ public class MarkCommand implements Command {
                 : "Locked In! Task marked as completed:";
         return msg + "\n" + t + "\n";
     }
+
+    @Override
+    String executeAll(TaskList list, int[] indices) throws LockyException, IOException {
+        List<Task> tasks = list.markAll(indices);
+        return BulkReply.format("Locked In! Marked " + tasks.size() + " task(s) as completed:", tasks);
+    }
 }
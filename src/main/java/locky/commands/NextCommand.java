@@ -0,0 +1,35 @@
+package locky.commands;
+
+import java.time.LocalDateTime;
+
+import locky.error.LockyException;
+import locky.tasks.TaskList;
+
+/**
+ * Represents the {@code next} command.
+ * When executed, it lists the next N deadlines and events from now,
+ * earliest first.
+ */
+public class NextCommand implements Command {
+    private final String countArg;
+    public NextCommand(String countArg) {
+        this.countArg = countArg;
+    }
+
+    @Override
+    public String execute(TaskList list) throws LockyException {
+        if (countArg == null || countArg.isBlank()) {
+            throw new LockyException("How many upcoming tasks? e.g., \"next 5\"");
+        }
+        int count;
+        try {
+            count = Integer.parseInt(countArg);
+        } catch (NumberFormatException e) {
+            throw new LockyException("Not a number: \"" + countArg + "\". Try \"next 5\".");
+        }
+        if (count <= 0) {
+            throw new LockyException("Ask for at least one task. Try \"next 5\".");
+        }
+        return list.formatNext(LocalDateTime.now(), count);
+    }
+}
@@ -0,0 +1,23 @@
+package locky.commands;
+
+import locky.error.LockyException;
+import locky.tasks.TaskList;
+import locky.utils.Parser;
+
+/**
+ * Represents the {@code overlap} command.
+ * When executed, it lists every event whose time overlaps the
+ * given window, ordered by start time.
+ */
+public class OverlapCommand implements Command {
+    private final String args;
+    public OverlapCommand(String args) {
+        this.args = args;
+    }
+
+    @Override
+    public String execute(TaskList list) throws LockyException {
+        Parser.ParsedWindow pw = Parser.parseWindowArgs(args);
+        return list.formatOverlapResults(pw.start(), pw.end());
+    }
+}
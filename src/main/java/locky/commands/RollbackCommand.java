@@ -0,0 +1,16 @@
+package locky.commands;
+
+import locky.error.LockyException;
+import locky.tasks.TaskList;
+
+/**
+ * Represents the {@code rollback} command.
+ * When executed, it ends the current batch and undoes all of its changes.
+ */
+public class RollbackCommand implements Command {
+    @Override
+    public String execute(TaskList list) throws LockyException {
+        int changes = list.rollbackBatch();
+        return "Batch rolled back: " + changes + " change(s) undone.\n";
+    }
+}
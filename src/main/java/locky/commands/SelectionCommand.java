@@ -0,0 +1,64 @@
+package locky.commands;
+
+import java.io.IOException;
+
+import locky.error.LockyException;
+import locky.tasks.TaskList;
+import locky.utils.Parser;
+
+/**
+ * Represents a command that acts on the tasks it names, such as {@code mark},
+ * {@code unmark} or {@code delete}. A plain task number selects one task;
+ * ranges ({@code 1-5}), lists ({@code 2,4,6}) and {@code find:<query>} select
+ * several, which the command then changes together.
+ */
+abstract class SelectionCommand implements Command {
+    private final String verb;
+    private final String indexArg;
+
+    SelectionCommand(String verb, String indexArg) {
+        this.verb = verb;
+        this.indexArg = indexArg;
+    }
+
+    @Override
+    public String execute(TaskList list) throws LockyException, IOException {
+        if (indexArg == null || indexArg.isBlank()) {
+            throw new LockyException("Which task number to " + verb + "? e.g., \"" + verb + " 2\"");
+        }
+        int idx;
+        try {
+            idx = Integer.parseInt(indexArg);
+        } catch (NumberFormatException e) {
+            Parser.ParsedSelection selection = Parser.parseSelection(indexArg, verb);
+            int[] indices = selection.resolve(list);
+            if (indices.length == 0) {
+                return BulkReply.noMatches(selection.query());
+            }
+            return executeAll(list, indices);
+        }
+        return executeOne(list, idx);
+    }
+
+    /**
+     * Acts on the single task at a 1-based index.
+     *
+     * @param list the TaskList holding the task.
+     * @param idx the 1-based index of the task.
+     * @return the reply to show.
+     * @throws LockyException if the index is not a task in the list.
+     * @throws IOException if saving the updated list fails.
+     */
+    abstract String executeOne(TaskList list, int idx) throws LockyException, IOException;
+
+    /**
+     * Acts on several tasks at once, saving them together.
+     *
+     * @param list the TaskList holding the tasks.
+     * @param indices the 1-based indices of the selected tasks, never empty.
+     * @return the reply to show.
+     * @throws LockyException if an index is not a task in the list.
+     * @throws IOException if saving the updated list fails.
+     */
+    abstract String executeAll(TaskList list, int[] indices) throws LockyException, IOException;
+}
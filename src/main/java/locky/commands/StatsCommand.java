@@ -0,0 +1,38 @@
+package locky.commands;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import locky.error.LockyException;
+import locky.tasks.TaskList;
+import locky.utils.Metrics;
+
+/**
+ * Represents the {@code stats} command.
+ * When executed, it prints the latency percentiles and throughput recorded in
+ * {@code Locky.utils.Metrics}. {@code stats export FILE} writes the same report
+ * to a plain-text file instead.
+ */
+public class StatsCommand implements Command {
+    private static final String EXPORT = "export";
+
+    private final String args;
+
+    public StatsCommand(String args) {
+        this.args = args;
+    }
+
+    @Override
+    public String execute(TaskList list) throws LockyException, IOException {
+        if (args.isBlank()) {
+            return "Here's how fast I've been locking in:\n" + Metrics.report();
+        }
+        String[] parts = args.strip().split("\\s+", 2);
+        if (parts.length < 2 || !parts[0].equalsIgnoreCase(EXPORT)) {
+            throw new LockyException("Try \"stats\" or \"stats export FILE\".");
+        }
+        String file = parts[1];
+        Metrics.exportTo(Path.of(file));
+        return "Saved a snapshot of my stats to " + file + "\n";
+    }
+}
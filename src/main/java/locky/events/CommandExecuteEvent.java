@@ -0,0 +1,39 @@
+package locky.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Records one {@code Locky.commands.Command} being executed, including the
+ * saves it triggers.
+ */
+@Name("locky.CommandExecute")
+@Label("Command Execute")
+@Category({"Locky", "Commands"})
+@Description("Executing one command against the task list")
+public class CommandExecuteEvent extends Event {
+    @Label("Command")
+    private Class<?> commandClass;
+
+    @Label("Successful")
+    private boolean isSuccessful;
+
+    /**
+     * Ends the event and, if it is enabled and exceeds its threshold, records it
+     * with the given values. While no recording is running this costs next to nothing.
+     *
+     * @param commandClass the class of the executed command.
+     * @param isSuccessful whether the command completed without an error.
+     */
+    public void commit(Class<?> commandClass, boolean isSuccessful) {
+        end();
+        if (shouldCommit()) {
+            this.commandClass = commandClass;
+            this.isSuccessful = isSuccessful;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package locky.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Records one line of user input being parsed into a {@code Locky.commands.Command}.
+ */
+@Name("locky.CommandParse")
+@Label("Command Parse")
+@Category({"Locky", "Commands"})
+@Description("Parsing one line of user input into a command")
+public class CommandParseEvent extends Event {
+    @Label("Input Length")
+    private int inputLength;
+
+    @Label("Successful")
+    private boolean isSuccessful;
+
+    /**
+     * Ends the event and, if it is enabled and exceeds its threshold, records it
+     * with the given values. While no recording is running this costs next to nothing.
+     *
+     * @param inputLength the length of the input line.
+     * @param isSuccessful whether the input named a valid command.
+     */
+    public void commit(int inputLength, boolean isSuccessful) {
+        end();
+        if (shouldCommit()) {
+            this.inputLength = inputLength;
+            this.isSuccessful = isSuccessful;
+            commit();
+        }
+    }
+}
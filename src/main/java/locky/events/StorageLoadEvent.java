@@ -0,0 +1,44 @@
+package locky.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Records the tasks of a {@code Locky.tasks.TaskList} being loaded from storage.
+ * Storages that decode lazily report the time to index the file, not to decode every task.
+ */
+@Name("locky.StorageLoad")
+@Label("Storage Load")
+@Category({"Locky", "Storage"})
+@Description("Loading the stored tasks")
+public class StorageLoadEvent extends Event {
+    @Label("Path")
+    private String path;
+
+    @Label("Task Count")
+    private int taskCount;
+
+    @Label("Successful")
+    private boolean isSuccessful;
+
+    /**
+     * Ends the event and, if it is enabled and exceeds its threshold, records it
+     * with the given values. While no recording is running this costs next to nothing.
+     *
+     * @param path the storage file.
+     * @param taskCount the number of tasks loaded.
+     * @param isSuccessful whether the file could be read.
+     */
+    public void commit(String path, int taskCount, boolean isSuccessful) {
+        end();
+        if (shouldCommit()) {
+            this.path = path;
+            this.taskCount = taskCount;
+            this.isSuccessful = isSuccessful;
+            commit();
+        }
+    }
+}
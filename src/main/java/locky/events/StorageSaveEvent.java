@@ -0,0 +1,51 @@
+package locky.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Records one write to a storage file: a full snapshot, a journal append or a
+ * journal compaction.
+ */
+@Name("locky.StorageSave")
+@Label("Storage Save")
+@Category({"Locky", "Storage"})
+@Description("Writing tasks to a storage file")
+public class StorageSaveEvent extends Event {
+    @Label("Path")
+    private String path;
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Task Count")
+    private int taskCount;
+
+    @Label("Bytes Written")
+    @DataAmount
+    private long bytes;
+
+    /**
+     * Ends the event and, if it is enabled and exceeds its threshold, records it
+     * with the given values. While no recording is running this costs next to nothing.
+     *
+     * @param path the file written.
+     * @param operation what was written, e.g. {@code snapshot} or {@code append}.
+     * @param taskCount the number of tasks in the list saved.
+     * @param bytes the number of bytes written.
+     */
+    public void commit(String path, String operation, int taskCount, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.path = path;
+            this.operation = operation;
+            this.taskCount = taskCount;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package locky.tasks;
+
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+/**
+ * Represents a list of tasks stored column by column: type and done flag in a
+ * {@code byte} tag, times as epoch minutes in {@code int} arrays and descriptions
+ * as UTF-8 in one shared byte arena. A stored task costs about 25 bytes plus
+ * its description, instead of a {@code Locky.tasks.Task} and its
+ * {@code LocalDateTime}s.
+ *
+ * <p>{@link #get(int)} builds a {@code Locky.tasks.Task} view and remembers it
+ * weakly: while anything else, such as a reply being shown, still holds the
+ * view, {@code get} returns that same object, and once nothing does it can be
+ * collected. The indexes of {@code Locky.tasks.TaskList} keep task IDs, not
+ * views. Tasks passed to {@link #add(int, Task)} or {@link #set(int, Task)} are
+ * remembered the same way. {@link #peek(int)} returns the remembered view if
+ * there is one and otherwise a throwaway view. Times that are not whole minutes
+ * within the {@code int} range are never encoded; such tasks are kept as objects.</p>
+ *
+ * <p>Because a view may be dropped and decoded again, changing a view's done
+ * flag directly is not remembered. Use {@link #setDone(int, boolean)}, which
+ * writes the flag into the tag column and into the view if one is alive.</p>
+ *
+ * <p>{@link #lineAt(int)} caches recently rendered lines in a small direct-mapped
+ * cache keyed by row, so paging back and forth does not decode and format the
+ * same rows again, while listing every row does not keep every line.</p>
+ */
+public class CompactTaskList extends AbstractList<Task> implements RandomAccess {
+    private static final byte TODO = 0;
+    private static final byte DEADLINE = 1;
+    private static final byte EVENT = 2;
+    private static final byte TYPE_MASK = 0x03;
+    private static final byte DONE = 0x04;
+    private static final int MIN_COMPACT_BYTES = 4096;
+    private static final int LINE_CACHE_SIZE = 1024;
+
+    private byte[] tags = new byte[16];
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int[] descOffsets = new int[16];
+    private int[] descLengths = new int[16];
+    // a Task for tasks that cannot be encoded, a WeakReference<Task> for views, or null
+    private Object[] kept = new Object[16];
+    // recently rendered lines; each slot holds one immutable entry, so a racing
+    // reader sees a whole entry or none
+    private final LineEntry[] lineCache = new LineEntry[LINE_CACHE_SIZE];
+    private byte[] arena = new byte[256];
+    private int arenaSize;
+    private int arenaGarbage;
+    private int size;
+
+    private record LineEntry(int row, String line) {}
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the task at the given index. A view that is still alive is
+     * returned again; otherwise a new one is built and remembered weakly.
+     *
+     * @param index the 0-based index.
+     * @return the task at that index.
+     */
+    @Override
+    public Task get(int index) {
+        Objects.checkIndex(index, size);
+        Task t = keptAt(index);
+        if (t == null) {
+            t = decode(index);
+            kept[index] = new WeakReference<>(t);
+        }
+        return t;
+    }
+
+    /**
+     * Returns the task at the given index without remembering a newly built view.
+     * Use this for read-only passes such as rendering or saving the whole list.
+     *
+     * @param index the 0-based index.
+     * @return the task at that index.
+     */
+    public Task peek(int index) {
+        Objects.checkIndex(index, size);
+        Task t = keptAt(index);
+        return t != null ? t : decode(index);
+    }
+
+    /**
+     * Returns the rendered line of the task at the given index, as
+     * {@link Task#toLine()} would, rendering it only if the row changed since.
+     *
+     * @param index the 0-based index.
+     * @return the rendered task.
+     */
+    public String lineAt(int index) {
+        Objects.checkIndex(index, size);
+        int slot = index & (LINE_CACHE_SIZE - 1);
+        LineEntry entry = lineCache[slot];
+        if (entry != null && entry.row() == index) {
+            return entry.line();
+        }
+        String line = peek(index).toLine();
+        lineCache[slot] = new LineEntry(index, line);
+        return line;
+    }
+
+    private void forgetLine(int index) {
+        int slot = index & (LINE_CACHE_SIZE - 1);
+        LineEntry entry = lineCache[slot];
+        if (entry != null && entry.row() == index) {
+            lineCache[slot] = null;
+        }
+    }
+
+    /**
+     * Sets the done flag of the task at the given index in the tag column, and
+     * in its view if one is alive, without building a view to keep.
+     *
+     * @param index the 0-based index.
+     * @param isDone the new done flag.
+     * @return the task at that index, for display.
+     */
+    public Task setDone(int index, boolean isDone) {
+        Objects.checkIndex(index, size);
+        tags[index] = (byte) (isDone ? tags[index] | DONE : tags[index] & ~DONE);
+        forgetLine(index);
+        Task t = keptAt(index);
+        if (t == null) {
+            return decode(index);
+        }
+        if (isDone) {
+            t.setDone();
+        } else {
+            t.setUndone();
+        }
+        return t;
+    }
+
+    @Override
+    public Task set(int index, Task task) {
+        Task old = peek(index);
+        arenaGarbage += descLengths[index];
+        encode(index, task);
+        return old;
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        Objects.checkIndex(index, size + 1);
+        Objects.requireNonNull(task, "task");
+        if (size == tags.length) {
+            grow();
+        }
+        int moved = size - index;
+        System.arraycopy(tags, index, tags, index + 1, moved);
+        System.arraycopy(starts, index, starts, index + 1, moved);
+        System.arraycopy(ends, index, ends, index + 1, moved);
+        System.arraycopy(descOffsets, index, descOffsets, index + 1, moved);
+        System.arraycopy(descLengths, index, descLengths, index + 1, moved);
+        System.arraycopy(kept, index, kept, index + 1, moved);
+        if (moved > 0) {
+            Arrays.fill(lineCache, null); // the rows after index moved
+        }
+        size++;
+        encode(index, task);
+        modCount++;
+    }
+
+    /**
+     * Returns a view of this list for storage to load into. Tasks appended
+     * through it are only kept in encoded form; every other operation
+     * behaves as on this list.
+     *
+     * @return a list that appends without keeping task objects.
+     */
+    public List<Task> asLoadTarget() {
+        return new AbstractList<Task>() {
+            @Override
+            public Task get(int index) {
+                return CompactTaskList.this.get(index);
+            }
+
+            @Override
+            public Task set(int index, Task task) {
+                return CompactTaskList.this.set(index, task);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public void add(int index, Task task) {
+                CompactTaskList.this.add(index, task);
+                if (index == size - 1 && isEncodable(task)) {
+                    kept[index] = null;
+                }
+            }
+
+            @Override
+            public Task remove(int index) {
+                return CompactTaskList.this.remove(index);
+            }
+        };
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task old = peek(index);
+        arenaGarbage += descLengths[index];
+        int moved = size - 1 - index;
+        System.arraycopy(tags, index + 1, tags, index, moved);
+        System.arraycopy(starts, index + 1, starts, index, moved);
+        System.arraycopy(ends, index + 1, ends, index, moved);
+        System.arraycopy(descOffsets, index + 1, descOffsets, index, moved);
+        System.arraycopy(descLengths, index + 1, descLengths, index, moved);
+        System.arraycopy(kept, index + 1, kept, index, moved);
+        size--;
+        kept[size] = null;
+        Arrays.fill(lineCache, null);
+        modCount++;
+        if (arenaGarbage > MIN_COMPACT_BYTES && arenaGarbage > arenaSize / 2) {
+            compactArena();
+        }
+        return old;
+    }
+
+    /**
+     * Removes matching tasks in one pass, testing each task once, in order.
+     *
+     * @param filter the condition for removal.
+     * @return true if any task was removed.
+     */
+    @Override
+    public boolean removeIf(Predicate<? super Task> filter) {
+        BitSet marked = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            if (filter.test(peek(i))) {
+                marked.set(i);
+            }
+        }
+        return removeMarked(marked);
+    }
+
+    /**
+     * Removes the tasks at every set index in one pass over the columns,
+     * without building any views.
+     *
+     * @param marked the indexes to remove; bits at or past {@link #size()} are ignored.
+     * @return true if any task was removed.
+     */
+    boolean removeMarked(BitSet marked) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (marked.get(i)) {
+                arenaGarbage += descLengths[i];
+                continue;
+            }
+            tags[count] = tags[i];
+            starts[count] = starts[i];
+            ends[count] = ends[i];
+            descOffsets[count] = descOffsets[i];
+            descLengths[count] = descLengths[i];
+            kept[count] = kept[i];
+            count++;
+        }
+        if (count == size) {
+            return false;
+        }
+        Arrays.fill(kept, count, size, null);
+        Arrays.fill(lineCache, null);
+        size = count;
+        modCount++;
+        if (arenaGarbage > MIN_COMPACT_BYTES && arenaGarbage > arenaSize / 2) {
+            compactArena();
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(kept, 0, size, null);
+        Arrays.fill(lineCache, null);
+        size = 0;
+        arenaSize = 0;
+        arenaGarbage = 0;
+        modCount++;
+    }
+
+    private Task keptAt(int index) {
+        Object k = kept[index];
+        if (k instanceof WeakReference<?> ref) {
+            return (Task) ref.get();
+        }
+        return (Task) k;
+    }
+
+    private Task decode(int index) {
+        String desc = new String(arena, descOffsets[index], descLengths[index], StandardCharsets.UTF_8);
+        boolean isDone = (tags[index] & DONE) != 0;
+        switch (tags[index] & TYPE_MASK) {
+        case DEADLINE:
+            return new Deadline(desc, isDone, toTime(starts[index]));
+        case EVENT:
+            return new Event(desc, isDone, toTime(starts[index]), toTime(ends[index]));
+        default:
+            return new Todo(desc, isDone);
+        }
+    }
+
+    /**
+     * Writes the task's columns at {@code index} and remembers the task itself:
+     * weakly if the columns can rebuild it, strongly otherwise.
+     */
+    private void encode(int index, Task task) {
+        byte type = TODO;
+        boolean isEncodable = isEncodable(task);
+        if (task instanceof Deadline d && isEncodable) {
+            type = DEADLINE;
+            starts[index] = toMinute(d.getDeadline());
+        } else if (task instanceof Event e && isEncodable) {
+            type = EVENT;
+            starts[index] = toMinute(e.getStart());
+            ends[index] = toMinute(e.getEnd());
+        }
+        tags[index] = (byte) (type | (task.getDone() ? DONE : 0));
+        byte[] desc = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        descOffsets[index] = appendToArena(desc, 0, desc.length);
+        descLengths[index] = desc.length;
+        kept[index] = isEncodable ? new WeakReference<>(task) : task;
+        forgetLine(index);
+    }
+
+    private static boolean isEncodable(Task task) {
+        if (task.getClass() == Deadline.class) {
+            return isWholeMinute(((Deadline) task).getDeadline());
+        } else if (task.getClass() == Event.class) {
+            Event e = (Event) task;
+            return isWholeMinute(e.getStart()) && isWholeMinute(e.getEnd());
+        }
+        return task.getClass() == Todo.class;
+    }
+
+    private static boolean isWholeMinute(LocalDateTime time) {
+        if (time.getSecond() != 0 || time.getNano() != 0) {
+            return false;
+        }
+        long minute = time.toEpochSecond(ZoneOffset.UTC) / 60;
+        return minute >= Integer.MIN_VALUE && minute <= Integer.MAX_VALUE;
+    }
+
+    private static int toMinute(LocalDateTime time) {
+        return (int) (time.toEpochSecond(ZoneOffset.UTC) / 60);
+    }
+
+    private static LocalDateTime toTime(int minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60L, 0, ZoneOffset.UTC);
+    }
+
+    private int appendToArena(byte[] bytes, int from, int length) {
+        if (arenaSize + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + length));
+        }
+        System.arraycopy(bytes, from, arena, arenaSize, length);
+        int offset = arenaSize;
+        arenaSize += length;
+        return offset;
+    }
+
+    /**
+     * Drops the bytes of removed and replaced descriptions from the arena.
+     */
+    private void compactArena() {
+        byte[] old = arena;
+        arena = new byte[Math.max(256, arenaSize - arenaGarbage)];
+        arenaSize = 0;
+        arenaGarbage = 0;
+        for (int i = 0; i < size; i++) {
+            descOffsets[i] = appendToArena(old, descOffsets[i], descLengths[i]);
+        }
+    }
+
+    private void grow() {
+        int capacity = tags.length * 2;
+        tags = Arrays.copyOf(tags, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        descOffsets = Arrays.copyOf(descOffsets, capacity);
+        descLengths = Arrays.copyOf(descLengths, capacity);
+        kept = Arrays.copyOf(kept, capacity);
+    }
+}
@@ -0,0 +1,412 @@
+package locky.tasks;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import locky.error.LockyException;
+import locky.utils.Storage;
+
+/**
+ * Represents a {@code Locky.tasks.TaskList} that can be shared between threads.
+ * Reads such as listing, finding and {@link #getTask(int)} share a read lock and
+ * run in parallel; every mutation takes the write lock, so mutations and the
+ * saves they trigger happen one at a time in a single order.
+ *
+ * <p>Reads must not change the list, so the constructor builds every index up
+ * front, which also decodes every task of a lazily loaded file. Over a
+ * {@code Locky.tasks.CompactTaskList} a read may still remember a view or a
+ * rendered line, each a single reference write. A batch is exclusive to the
+ * thread that began it; see {@link #beginBatch()}. A rollback drops the
+ * indexes; the next read that needs them briefly takes the write lock to
+ * rebuild them. The lock is reentrant because the methods of
+ * {@code Locky.tasks.TaskList} call one another, for example
+ * {@link #mark(int)} calls {@link #getTask(int)}.</p>
+ */
+public class ConcurrentTaskList extends TaskList {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+    private final Condition batchEnded = writeLock.newCondition();
+    private Thread batchOwner;
+
+    /**
+     * Creates a thread-safe task list backed by the given storage.
+     *
+     * @param storage the Locky.utils.Storage object used to load and save tasks.
+     */
+    public ConcurrentTaskList(Storage storage) {
+        super(storage);
+        buildIndexes();
+    }
+
+    @Override
+    public int getSize() {
+        readLock.lock();
+        try {
+            return super.getSize();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public Task getTask(int indexOneBased) throws LockyException {
+        readLock.lock();
+        try {
+            return super.getTask(indexOneBased);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isTaskDone(int indexOneBased) throws LockyException {
+        readLock.lock();
+        try {
+            return super.isTaskDone(indexOneBased);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        readLock.lock();
+        try {
+            return super.isEmpty();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public String getListString() {
+        readLock.lock();
+        try {
+            return super.getListString();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public void writeList(Appendable out, int from, int count) throws IOException {
+        readLock.lock();
+        try {
+            super.writeList(out, from, count);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public long getId(int indexOneBased) throws LockyException {
+        readLock.lock();
+        try {
+            return super.getId(indexOneBased);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isInBatch() {
+        readLock.lock();
+        try {
+            return super.isInBatch();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public int getBatchChangeCount() {
+        readLock.lock();
+        try {
+            return super.getBatchChangeCount();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public String formatOverlapResults(LocalDateTime from, LocalDateTime to) {
+        lockIndexedRead();
+        try {
+            return super.formatOverlapResults(from, to);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public int[] findIndices(String query) {
+        lockIndexedRead();
+        try {
+            return super.findIndices(query);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public String formatFindResults(String keyword) {
+        lockIndexedRead();
+        try {
+            return super.formatFindResults(keyword);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public String formatDueBefore(LocalDateTime time) {
+        lockIndexedRead();
+        try {
+            return super.formatDueBefore(time);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public String formatBetween(LocalDateTime from, LocalDateTime to) {
+        lockIndexedRead();
+        try {
+            return super.formatBetween(from, to);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public String formatNext(LocalDateTime from, int count) {
+        lockIndexedRead();
+        try {
+            return super.formatNext(from, count);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public void addTodo(String desc) throws IOException {
+        lockForMutation();
+        try {
+            super.addTodo(desc);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void addDeadline(String desc, LocalDateTime deadline) throws IOException {
+        lockForMutation();
+        try {
+            super.addDeadline(desc, deadline);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void addEvent(String desc, LocalDateTime from, LocalDateTime to) throws IOException, LockyException {
+        lockForMutation();
+        try {
+            super.addEvent(desc, from, to);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Task mark(int indexOneBased) throws IOException, LockyException {
+        lockForMutation();
+        try {
+            return super.mark(indexOneBased);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Task unmark(int indexOneBased) throws IOException, LockyException {
+        lockForMutation();
+        try {
+            return super.unmark(indexOneBased);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Task delete(int indexOneBased) throws IOException, LockyException {
+        lockForMutation();
+        try {
+            return super.delete(indexOneBased);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Task deleteById(long id) throws IOException, LockyException {
+        lockForMutation();
+        try {
+            return super.deleteById(id);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> markAll(int[] indicesOneBased) throws IOException, LockyException {
+        lockForMutation();
+        try {
+            return super.markAll(indicesOneBased);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> unmarkAll(int[] indicesOneBased) throws IOException, LockyException {
+        lockForMutation();
+        try {
+            return super.unmarkAll(indicesOneBased);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> deleteAll(int[] indicesOneBased) throws IOException, LockyException {
+        lockForMutation();
+        try {
+            return super.deleteAll(indicesOneBased);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Starts a batch that belongs to the calling thread. Until it ends, mutations
+     * from other threads wait, and only this thread may commit or roll it back.
+     * Other threads still read the uncommitted changes. If another thread has a
+     * batch open, waits for it to end first.
+     *
+     * @throws LockyException if this thread is already in a batch, or is interrupted while waiting.
+     */
+    @Override
+    public void beginBatch() throws LockyException {
+        writeLock.lock();
+        try {
+            awaitBatchEnd();
+            super.beginBatch();
+            batchOwner = Thread.currentThread();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LockyException("Interrupted while waiting for another batch to finish.");
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int commitBatch() throws IOException, LockyException {
+        writeLock.lock();
+        try {
+            checkBatchOwner();
+            int changes = super.commitBatch();
+            endBatch();
+            return changes;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int rollbackBatch() throws LockyException {
+        writeLock.lock();
+        try {
+            checkBatchOwner();
+            try {
+                return super.rollbackBatch();
+            } finally {
+                // the batch is over even if an undo step failed
+                endBatch();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeLock.lock();
+        try {
+            super.flush();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Takes the write lock once no other thread has a batch open, so that a
+     * mutation never lands in another thread's batch.
+     *
+     * @throws IOException if interrupted while waiting.
+     */
+    private void lockForMutation() throws IOException {
+        writeLock.lock();
+        try {
+            awaitBatchEnd();
+        } catch (InterruptedException e) {
+            writeLock.unlock();
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for another batch to finish", e);
+        }
+    }
+
+    private void awaitBatchEnd() throws InterruptedException {
+        while (batchOwner != null && batchOwner != Thread.currentThread()) {
+            batchEnded.await();
+        }
+    }
+
+    private void checkBatchOwner() throws LockyException {
+        if (batchOwner != null && batchOwner != Thread.currentThread()) {
+            throw new LockyException("The batch in progress was started elsewhere and can only be ended there.");
+        }
+    }
+
+    private void endBatch() {
+        batchOwner = null;
+        batchEnded.signalAll();
+    }
+
+    /**
+     * Takes the read lock with every index built. If a rollback dropped the
+     * indexes, rebuilds them under the write lock first and then downgrades.
+     */
+    private void lockIndexedRead() {
+        readLock.lock();
+        if (isIndexed()) {
+            return;
+        }
+        readLock.unlock();
+        writeLock.lock();
+        try {
+            if (!isIndexed()) {
+                buildIndexes();
+            }
+            readLock.lock();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
@@ -40,6 +40,6 @@ public class Deadline extends Task {
      * @return formatted deadline.
      */
     public String getFormattedDeadline() {
-        return DateTimeFormat.DISPLAY.format(deadline);
+        return DateTimeFormat.formatDisplay(deadline);
     }
 }
@@ -52,7 +52,7 @@ public class Event extends Task {
      * @return the formatted start date/time of the event.
      */
     public String getFormattedStart() {
-        return DateTimeFormat.DISPLAY.format(start);
+        return DateTimeFormat.formatDisplay(start);
     }
 
     /**
@@ -61,7 +61,7 @@ public class Event extends Task {
      * @return the formatted end date/time of the event.
      */
     public String getFormattedEnd() {
-        return DateTimeFormat.DISPLAY.format(end);
+        return DateTimeFormat.formatDisplay(end);
     }
 
     /**
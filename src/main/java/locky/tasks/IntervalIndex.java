@@ -0,0 +1,188 @@
+package locky.tasks;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+/**
+ * Represents an interval tree over the start and end times of events.
+ * Nodes form a treap ordered by start time, and each node also stores the
+ * latest end time in its subtree. Overlap queries can therefore skip any
+ * subtree that ends before the query window starts. Inserts, deletes and
+ * first-overlap lookups take expected O(log n); listing k overlapping events
+ * takes O(log n + k) in the common case.
+ *
+ * <p>Events are identified by their stable task ID and only their times are
+ * kept, so the index does not hold on to any {@code Locky.tasks.Task}. Events
+ * starting at the same time are ordered by ID.</p>
+ */
+class IntervalIndex {
+    private final Random random = new Random();
+    private final HashMap<Long, Node> nodes = new HashMap<>();
+    private Node root;
+
+    private static final class Node {
+        private final long start;
+        private final long end;
+        private final long id;
+        private final int priority;
+        private long maxEnd;
+        private Node left;
+        private Node right;
+
+        private Node(long id, Event event, int priority) {
+            this.start = toKey(event.getStart());
+            this.end = toKey(event.getEnd());
+            this.id = id;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+
+        private void update() {
+            maxEnd = end;
+            if (left != null && left.maxEnd > maxEnd) {
+                maxEnd = left.maxEnd;
+            }
+            if (right != null && right.maxEnd > maxEnd) {
+                maxEnd = right.maxEnd;
+            }
+        }
+
+        private boolean isBefore(long otherStart, long otherId) {
+            return start < otherStart || (start == otherStart && id < otherId);
+        }
+    }
+
+    static long toKey(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Adds an event to the index. Adding the same ID twice has no effect.
+     *
+     * @param id the event's stable task ID.
+     * @param event the event whose times to index.
+     */
+    void add(long id, Event event) {
+        if (nodes.containsKey(id)) {
+            return;
+        }
+        Node node = new Node(id, event, random.nextInt());
+        nodes.put(id, node);
+        Node[] parts = split(root, node.start, node.id);
+        root = merge(merge(parts[0], node), parts[1]);
+    }
+
+    /**
+     * Removes an event from the index if it is present.
+     *
+     * @param id the event's stable task ID.
+     */
+    void remove(long id) {
+        Node node = nodes.remove(id);
+        if (node == null) {
+            return;
+        }
+        Node[] lower = split(root, node.start, node.id);
+        Node[] upper = split(lower[1], node.start, node.id + 1);
+        root = merge(lower[0], upper[1]);
+    }
+
+    /**
+     * Returns the earliest-starting event overlapping {@code [from, to)}.
+     *
+     * @param from start of the window.
+     * @param to end of the window.
+     * @return the ID of the first overlapping event, or -1 if there is none.
+     */
+    long findFirstOverlap(LocalDateTime from, LocalDateTime to) {
+        Node found = firstIn(root, toKey(from), toKey(to));
+        return found == null ? -1 : found.id;
+    }
+
+    private Node firstIn(Node node, long qs, long qe) {
+        if (node == null || node.maxEnd <= qs) {
+            return null;
+        }
+        Node found = firstIn(node.left, qs, qe);
+        if (found != null) {
+            return found;
+        }
+        if (node.start >= qe) {
+            return null;
+        }
+        if (node.end > qs) {
+            return node;
+        }
+        return firstIn(node.right, qs, qe);
+    }
+
+    /**
+     * Returns every event overlapping {@code [from, to)}, ordered by start time.
+     *
+     * @param from start of the window.
+     * @param to end of the window.
+     * @return the IDs of the overlapping events.
+     */
+    long[] findOverlaps(LocalDateTime from, LocalDateTime to) {
+        LongStream.Builder out = LongStream.builder();
+        collect(root, toKey(from), toKey(to), out);
+        return out.build().toArray();
+    }
+
+    private void collect(Node node, long qs, long qe, LongStream.Builder out) {
+        if (node == null || node.maxEnd <= qs) {
+            return;
+        }
+        collect(node.left, qs, qe, out);
+        if (node.start >= qe) {
+            return;
+        }
+        if (node.end > qs) {
+            out.add(node.id);
+        }
+        collect(node.right, qs, qe, out);
+    }
+
+    /**
+     * Splits a subtree into nodes ordered before {@code (start, id)} and the rest.
+     */
+    private static Node[] split(Node node, long start, long id) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        if (node.isBefore(start, id)) {
+            Node[] parts = split(node.right, start, id);
+            node.right = parts[0];
+            node.update();
+            return new Node[] {node, parts[1]};
+        }
+        Node[] parts = split(node.left, start, id);
+        node.left = parts[1];
+        node.update();
+        return new Node[] {parts[0], node};
+    }
+
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            a.update();
+            return a;
+        }
+        b.left = merge(a, b.left);
+        b.update();
+        return b;
+    }
+}
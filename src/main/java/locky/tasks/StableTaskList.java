@@ -0,0 +1,378 @@
+package locky.tasks;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Represents the positional view of a task list whose tasks live in slots that
+ * never move until compaction. Deleting a task only marks its slot as a
+ * tombstone, so later tasks are not shifted. A Fenwick tree over the live
+ * slots maps the 1-based numbering users see to slots in O(log n).
+ *
+ * <p>Every slot has a stable ID. IDs are handed out in increasing order and
+ * compaction keeps the order, so the ID array stays sorted and serves as the
+ * ID-to-slot map. Only an insert into the middle of the list breaks the order;
+ * until compaction finds it sorted again, lookups go through a hash map from ID
+ * to slot, built on first use after each shift. Tombstones are compacted away once
+ * they outnumber live tasks, which keeps deletes amortised O(log n) even when
+ * deleting from the front. Compaction is held back while an undo log may still
+ * revive tombstones; see {@link #holdCompaction(boolean)}.</p>
+ */
+class StableTaskList extends AbstractList<Task> implements RandomAccess {
+    private static final int MIN_COMPACT_TOMBSTONES = 64;
+
+    private final List<Task> slots;
+    private final BitSet removed = new BitSet();
+    private long[] ids;
+    private int[] tree;
+    private int live;
+    private int tombstones;
+    private long nextId;
+    private boolean isIdOrderBroken;
+    private boolean isCompactionHeld;
+    // only used while the ID order is broken; null until needed or after slots shift.
+    // Readers may build it concurrently, so it is published whole through a volatile write.
+    private volatile Map<Long, Integer> slotById;
+
+    /**
+     * Creates a view over the given tasks, which become the initial slots.
+     *
+     * @param slots the list holding the tasks; it is owned by this view from now on.
+     */
+    StableTaskList(List<Task> slots) {
+        this.slots = slots;
+        this.live = slots.size();
+        this.ids = new long[Math.max(16, live)];
+        for (int i = 0; i < live; i++) {
+            ids[i] = nextId++;
+        }
+        rebuildTree();
+    }
+
+    @Override
+    public int size() {
+        return live;
+    }
+
+    @Override
+    public Task get(int index) {
+        return slots.get(slotAt(index));
+    }
+
+    @Override
+    public Task set(int index, Task task) {
+        return slots.set(slotAt(index), task);
+    }
+
+    /**
+     * Inserts a task at a position. Appending is O(log n). Putting back a task
+     * right where it was deleted revives its tombstone and ID. Any other insert
+     * shifts the later slots, compacting first unless compaction is held.
+     *
+     * @param index the 0-based position to insert at.
+     * @param task the task to insert.
+     */
+    @Override
+    public void add(int index, Task task) {
+        Objects.checkIndex(index, live + 1);
+        int slot = index == live ? slots.size() : slotAt(index);
+        if (slot > 0 && removed.get(slot - 1) && slots.get(slot - 1) == task) {
+            removed.clear(slot - 1);
+            tombstones--;
+            live++;
+            update(slot - 1, 1);
+        } else if (index == live) {
+            ensureCapacity(slot + 1);
+            slots.add(task);
+            ids[slot] = nextId;
+            if (slotById != null) {
+                slotById.put(nextId, slot);
+            }
+            nextId++;
+            live++;
+            update(slot, 1);
+        } else {
+            if (!isCompactionHeld) {
+                compact();
+                slot = index;
+            }
+            slots.add(slot, task);
+            ensureCapacity(slots.size());
+            System.arraycopy(ids, slot, ids, slot + 1, slots.size() - 1 - slot);
+            for (int b = removed.previousSetBit(slots.size() - 2); b >= slot; b = removed.previousSetBit(b - 1)) {
+                removed.clear(b);
+                removed.set(b + 1);
+            }
+            ids[slot] = nextId++;
+            isIdOrderBroken = true;
+            slotById = null;
+            live++;
+            rebuildTree();
+        }
+        modCount++;
+    }
+
+    @Override
+    public Task remove(int index) {
+        int slot = slotAt(index);
+        Task t = slots.get(slot);
+        removed.set(slot);
+        tombstones++;
+        live--;
+        update(slot, -1);
+        modCount++;
+        compactIfSparse();
+        return t;
+    }
+
+    /**
+     * Puts a deleted task back into its tombstone, with its old ID and position,
+     * however many tasks were deleted around it since. This is how batch
+     * rollback restores deletes.
+     *
+     * @param id the stable ID the task had.
+     * @throws IllegalStateException if that ID is live or its tombstone was compacted away.
+     */
+    void revive(long id) {
+        int slot = isIdOrderBroken ? mappedSlotOf(id) : Arrays.binarySearch(ids, 0, slots.size(), id);
+        if (slot < 0 || !removed.get(slot)) {
+            throw new IllegalStateException("No deleted task with ID " + id);
+        }
+        removed.clear(slot);
+        tombstones--;
+        live++;
+        update(slot, 1);
+        modCount++;
+    }
+
+    /**
+     * Holds back or allows compaction after deletes. An open batch holds it, since
+     * rollback puts deleted tasks back into their tombstones and finds changed
+     * tasks by ID, and compaction would drop both. Allowing it again compacts
+     * at once if tombstones piled up meanwhile.
+     *
+     * @param isHeld whether compaction is held back.
+     */
+    void holdCompaction(boolean isHeld) {
+        isCompactionHeld = isHeld;
+        compactIfSparse();
+    }
+
+    private void compactIfSparse() {
+        if (!isCompactionHeld && tombstones >= MIN_COMPACT_TOMBSTONES && tombstones > live) {
+            compact();
+        }
+    }
+
+    /**
+     * Returns the stable ID of the task at a position.
+     *
+     * @param index the 0-based position.
+     * @return the task's ID.
+     */
+    long idAt(int index) {
+        return ids[slotAt(index)];
+    }
+
+    /**
+     * Returns the current position of the task with the given ID.
+     *
+     * @param id the stable ID.
+     * @return the 0-based position, or -1 if no live task has that ID.
+     */
+    int indexOf(long id) {
+        int slot = isIdOrderBroken ? mappedSlotOf(id) : Arrays.binarySearch(ids, 0, slots.size(), id);
+        if (slot < 0 || removed.get(slot)) {
+            return -1;
+        }
+        return prefix(slot + 1) - 1;
+    }
+
+    private int mappedSlotOf(long id) {
+        Map<Long, Integer> map = slotById;
+        if (map == null) {
+            map = new HashMap<>();
+            for (int slot = 0; slot < slots.size(); slot++) {
+                map.put(ids[slot], slot);
+            }
+            slotById = map;
+        }
+        return map.getOrDefault(id, -1);
+    }
+
+    /**
+     * Sets the done flag of the task at a position. Over a
+     * {@code Locky.tasks.CompactTaskList} the flag is written to its columns,
+     * so no view has to be kept for the change to last.
+     *
+     * @param index the 0-based position.
+     * @param isDone the new done flag.
+     * @return the task at that position.
+     */
+    Task setDone(int index, boolean isDone) {
+        int slot = slotAt(index);
+        if (slots instanceof CompactTaskList compact) {
+            return compact.setDone(slot, isDone);
+        }
+        Task t = slots.get(slot);
+        if (isDone) {
+            t.setDone();
+        } else {
+            t.setUndone();
+        }
+        return t;
+    }
+
+    /**
+     * Returns the live tasks in order for a read-only pass, such as a save.
+     * Over a {@code Locky.tasks.CompactTaskList} a task that nothing else holds
+     * comes back as a throwaway view, as from {@link #peek(int)}.
+     *
+     * @return an iterator over the live tasks.
+     */
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<>() {
+            private int slot = removed.nextClearBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return slot < slots.size();
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Task t = peekSlot(slot);
+                slot = removed.nextClearBit(slot + 1);
+                return t;
+            }
+        };
+    }
+
+    /**
+     * Returns the task at a position for read-only display. Over a
+     * {@code Locky.tasks.CompactTaskList} this does not remember the view it builds.
+     *
+     * @param index the 0-based position.
+     * @return the task at that position.
+     */
+    Task peek(int index) {
+        return peekSlot(slotAt(index));
+    }
+
+    /**
+     * Returns the rendered line of the task at a position. Over a
+     * {@code Locky.tasks.CompactTaskList} recently rendered lines are cached
+     * there, since a throwaway view would forget them.
+     *
+     * @param index the 0-based position.
+     * @return the rendered task.
+     */
+    String lineAt(int index) {
+        int slot = slotAt(index);
+        return slots instanceof CompactTaskList compact ? compact.lineAt(slot) : slots.get(slot).toLine();
+    }
+
+    private Task peekSlot(int slot) {
+        return slots instanceof CompactTaskList compact ? compact.peek(slot) : slots.get(slot);
+    }
+
+    /**
+     * Drops every tombstone from the backing list and the ID array in a single
+     * pass, moving live slots down in order. Restores binary search on IDs if
+     * the remaining IDs are sorted.
+     */
+    private void compact() {
+        if (tombstones == 0) {
+            return;
+        }
+        int size = slots.size();
+        if (slots instanceof CompactTaskList compact) {
+            compact.removeMarked(removed);
+        } else {
+            int to = 0;
+            for (int slot = removed.nextClearBit(0); slot < size; slot = removed.nextClearBit(slot + 1)) {
+                if (to != slot) {
+                    slots.set(to, slots.get(slot));
+                }
+                to++;
+            }
+            slots.subList(to, size).clear();
+        }
+        int kept = 0;
+        boolean isSorted = true;
+        for (int slot = removed.nextClearBit(0); slot < size; slot = removed.nextClearBit(slot + 1)) {
+            isSorted &= kept == 0 || ids[kept - 1] < ids[slot];
+            ids[kept++] = ids[slot];
+        }
+        isIdOrderBroken = !isSorted;
+        slotById = null;
+        removed.clear();
+        tombstones = 0;
+        rebuildTree();
+    }
+
+    private int slotAt(int index) {
+        Objects.checkIndex(index, live);
+        // binary lifting: find the slot holding the (index + 1)-th live task
+        int pos = 0;
+        int rank = index + 1;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next < tree.length && tree[next] < rank) {
+                pos = next;
+                rank -= tree[next];
+            }
+        }
+        return pos;
+    }
+
+    private int prefix(int count) {
+        int sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private void update(int slot, int delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private void ensureCapacity(int slotCount) {
+        if (slotCount > ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(slotCount, ids.length * 2));
+            rebuildTree();
+        }
+    }
+
+    /**
+     * Rebuilds the Fenwick tree in O(n), sized to the ID array's capacity.
+     */
+    private void rebuildTree() {
+        tree = new int[ids.length + 1];
+        int size = slots.size();
+        for (int i = 1; i < tree.length; i++) {
+            if (i <= size && !removed.get(i - 1)) {
+                tree[i]++;
+            }
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
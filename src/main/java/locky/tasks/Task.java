@@ -8,6 +8,7 @@ package locky.tasks;
 public class Task {
     private final String description;
     private boolean isDone;
+    private String line;
 
     /**
      * Creates new task object with description and completion
@@ -28,10 +29,27 @@ public class Task {
 
     public void setDone() {
         this.isDone = true;
+        this.line = null;
     }
 
     public void setUndone() {
         this.isDone = false;
+        this.line = null;
+    }
+
+    /**
+     * Returns {@link #toString()}, computed once and kept until the task changes.
+     * Only the done flag can change; descriptions and times are fixed.
+     *
+     * @return the rendered task.
+     */
+    public String toLine() {
+        String rendered = line;
+        if (rendered == null) {
+            rendered = toString();
+            line = rendered;
+        }
+        return rendered;
     }
 
     public boolean getDone() {
@@ -50,13 +68,17 @@ public class Task {
      * @return true if description contains query; false otherwise.
      */
     public boolean isMatching(String query) {
-        if (query == null) {
-            return false;
-        }
-        String key = query.trim().toLowerCase();
-        if (key.isEmpty()) {
-            return false;
-        }
-        return description.toLowerCase().contains(key);
+        return query != null && isMatchingKey(query.trim().toLowerCase());
+    }
+
+    /**
+     * Checks whether the description contains a key that is already trimmed and
+     * lower-cased, so that a search over many tasks normalizes its query only once.
+     *
+     * @param key the normalized keyword.
+     * @return true if the lower-cased description contains a non-empty key.
+     */
+    boolean isMatchingKey(String key) {
+        return !key.isEmpty() && description.toLowerCase().contains(key);
     }
 }
@@ -1,10 +1,16 @@
 package locky.tasks;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
 
 import locky.error.LockyException;
+import locky.events.StorageLoadEvent;
 import locky.utils.Storage;
 
 /**
@@ -12,33 +18,44 @@ import locky.utils.Storage;
  * The {@code Locky.tasks.TaskList} class manages a collection of tasks, including
  * {@code Locky.tasks.Todo}, {@code Locky.tasks.Deadline}, and {@code Locky.tasks.Event}. It supports adding,
  * retrieving, marking, unmarking, deleting, and printing tasks. Changes
- * are saved automatically to the associated {@link Storage} object.
+ * are saved automatically to the associated {@link Storage} object, except
+ * inside a batch, where they are saved once on commit.
  */
 public class TaskList {
-    private final ArrayList<Task> tasks;
+    private final StableTaskList tasks;
     private final Storage storage;
+    private IntervalIndex eventIndex;
+    private TextIndex textIndex;
+    private TimeIndex timeIndex;
+    private Deque<Runnable> undoLog;
 
     /**
      * Creates a new Locky.tasks.TaskList backed by the given storage.
-     * Attempts to load existing tasks from the storage file. If the file
-     * cannot be read, an empty task list is created instead.
+     * Attempts to load existing tasks from the storage file, which may decode
+     * them lazily on first access. If the file cannot be read, an empty task
+     * list is created instead.
      *
      * @param storage the Locky.utils.Storage object used to load and save tasks.
      */
     public TaskList(Storage storage) {
         this.storage = storage;
-        ArrayList<Task> loadedTasks;
+        StorageLoadEvent event = new StorageLoadEvent();
+        event.begin();
+        List<Task> loadedTasks;
+        boolean isLoaded = false;
         try {
-            loadedTasks = storage.load();
+            loadedTasks = storage.loadLazily();
+            isLoaded = true;
         } catch (IOException e) {
             System.out.println("(Could not load previous tasks: " + e.getMessage() + ")");
             loadedTasks = new ArrayList<>();
         }
-        this.tasks = loadedTasks;
+        event.commit(storage.getPath(), loadedTasks.size(), isLoaded);
+        this.tasks = new StableTaskList(loadedTasks);
     }
 
-    private TaskList(ArrayList<Task> tasks) {
-        this.tasks = tasks;
+    private TaskList(List<Task> tasks) {
+        this.tasks = new StableTaskList(tasks);
         this.storage = null;
     }
 
@@ -47,11 +64,14 @@ public class TaskList {
     }
 
     public Task getTask(int indexOneBased) throws LockyException {
-        int idx = indexOneBased - 1;
-        if (idx < 0 || idx >= tasks.size()) {
+        checkIndex(indexOneBased);
+        return tasks.get(indexOneBased - 1);
+    }
+
+    private void checkIndex(int indexOneBased) throws LockyException {
+        if (indexOneBased < 1 || indexOneBased > tasks.size()) {
             throw new LockyException("No such task: " + indexOneBased);
         }
-        return tasks.get(idx);
     }
 
     public boolean isTaskDone(int indexOneBased) throws LockyException {
@@ -70,12 +90,30 @@ public class TaskList {
      */
     public String getListString() {
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < tasks.size(); i++) {
-            sb.append(i + 1).append(". ").append(tasks.get(i)).append("\n");
+        try {
+            writeList(sb, 0, tasks.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a StringBuilder never throws
         }
         return sb.toString();
     }
 
+    /**
+     * Writes part of the task list, one numbered line per task, straight to
+     * {@code out}. Each task's line is rendered once and reused until the task changes.
+     *
+     * @param out where to write the lines.
+     * @param from the 0-based position of the first task to write.
+     * @param count the maximum number of tasks to write.
+     * @throws IOException if writing to {@code out} fails.
+     */
+    public void writeList(Appendable out, int from, int count) throws IOException {
+        int end = (int) Math.min(tasks.size(), (long) from + count);
+        for (int i = Math.max(from, 0); i < end; i++) {
+            out.append(Integer.toString(i + 1)).append(". ").append(tasks.lineAt(i)).append('\n');
+        }
+    }
+
     /**
      * Adds a new todo task to the list and saves the updated list.
      *
@@ -83,8 +121,10 @@ public class TaskList {
      * @throws IOException if saving the updated list fails.
      */
     public void addTodo(String desc) throws IOException {
-        tasks.add(new Todo(desc, false));
-        save();
+        Task t = new Todo(desc, false);
+        tasks.add(t);
+        indexAdded(t);
+        persistAdded(t);
     }
 
     /**
@@ -95,8 +135,10 @@ public class TaskList {
      * @throws IOException if saving the updated list fails.
      */
     public void addDeadline(String desc, LocalDateTime deadline) throws IOException {
-        tasks.add(new Deadline(desc, false, deadline));
-        save();
+        Task t = new Deadline(desc, false, deadline);
+        tasks.add(t);
+        indexAdded(t);
+        persistAdded(t);
     }
 
     /**
@@ -114,8 +156,10 @@ public class TaskList {
                     + clashing.getDescription() + " ("
                     + clashing.getFormattedStart() + "–" + clashing.getFormattedEnd() + ")");
         }
-        tasks.add(new Event(desc, false, from, to));
-        save();
+        Event t = new Event(desc, false, from, to);
+        tasks.add(t);
+        indexAdded(t);
+        persistAdded(t);
     }
 
     /**
@@ -127,16 +171,41 @@ public class TaskList {
      * @return null if no clashes; Event it clashes with.
      */
     private Event findClash(LocalDateTime from, LocalDateTime to) {
-        for (Task t : this.tasks) {
-            if (!(t instanceof Event)) {
-                continue;
-            }
-            Event e = (Event) t;
-            if (e.isClashing(from, to)) {
-                return e;
+        long id = events().findFirstOverlap(from, to);
+        return id < 0 ? null : (Event) peekById(id);
+    }
+
+    /**
+     * Returns the interval index over all events, building it on first use
+     * so that lazily loaded tasks are not decoded at startup.
+     *
+     * @return the up-to-date event index.
+     */
+    private IntervalIndex events() {
+        if (eventIndex == null) {
+            eventIndex = new IntervalIndex();
+            for (int i = 0; i < tasks.size(); i++) {
+                if (tasks.peek(i) instanceof Event e) {
+                    eventIndex.add(tasks.idAt(i), e);
+                }
             }
         }
-        return null;
+        return eventIndex;
+    }
+
+    /**
+     * Formats every event overlapping the given window, ordered by start time.
+     *
+     * @param from the start of the window.
+     * @param to the end of the window.
+     * @return String of overlapping events, or a message if there are none.
+     */
+    public String formatOverlapResults(LocalDateTime from, LocalDateTime to) {
+        long[] overlapping = events().findOverlaps(from, to);
+        if (overlapping.length == 0) {
+            return "No events in that window.\n";
+        }
+        return new TaskList(peekAll(overlapping)).getListString();
     }
 
     /**
@@ -148,10 +217,7 @@ public class TaskList {
      * @throws LockyException if the index is invalid.
      */
     public Task mark(int indexOneBased) throws IOException, LockyException {
-        Task t = getTask(indexOneBased);
-        t.setDone();
-        save();
-        return t;
+        return setDone(indexOneBased, true);
     }
 
     /**
@@ -163,9 +229,19 @@ public class TaskList {
      * @throws LockyException if the index is invalid.
      */
     public Task unmark(int indexOneBased) throws IOException, LockyException {
-        Task t = getTask(indexOneBased);
-        t.setUndone();
-        save();
+        return setDone(indexOneBased, false);
+    }
+
+    /**
+     * Sets the done flag through the list rather than on a task object, so that
+     * compactly stored tasks record the change without keeping a view.
+     */
+    private Task setDone(int indexOneBased, boolean isDone) throws IOException, LockyException {
+        checkIndex(indexOneBased);
+        int index = indexOneBased - 1;
+        logDoneChange(index);
+        Task t = tasks.setDone(index, isDone);
+        persistUpdated(index);
         return t;
     }
 
@@ -179,31 +255,278 @@ public class TaskList {
      */
     public Task delete(int indexOneBased) throws IOException, LockyException {
         Task t = getTask(indexOneBased);
+        long id = tasks.idAt(indexOneBased - 1);
         tasks.remove(indexOneBased - 1);
-        save();
+        indexRemoved(id, t);
+        if (undoLog != null) {
+            undoLog.push(() -> tasks.revive(id));
+        }
+        persistDeleted(indexOneBased - 1);
         return t;
     }
 
+    /**
+     * Returns the stable ID of the task at the given position. Unlike the
+     * position, the ID does not change when earlier tasks are deleted.
+     *
+     * @param indexOneBased the 1-based index of the task.
+     * @return the task's ID.
+     * @throws LockyException if the index is invalid.
+     */
+    public long getId(int indexOneBased) throws LockyException {
+        checkIndex(indexOneBased);
+        return tasks.idAt(indexOneBased - 1);
+    }
+
+    /**
+     * Deletes the task with the given stable ID and saves the updated list.
+     *
+     * @param id the ID returned by {@link #getId(int)}.
+     * @return the task that was removed from the list.
+     * @throws IOException if saving the updated list fails.
+     * @throws LockyException if no task has that ID.
+     */
+    public Task deleteById(long id) throws IOException, LockyException {
+        int index = tasks.indexOf(id);
+        if (index < 0) {
+            throw new LockyException("No such task ID: " + id);
+        }
+        return delete(index + 1);
+    }
+
+    /**
+     * Returns the 1-based positions of the tasks matching a query, in list order.
+     *
+     * @param query query as understood by {@link TextIndex#search(String)}.
+     * @return the positions of the matching tasks.
+     */
+    public int[] findIndices(String query) {
+        int[] indices = positionsOf(words().search(query));
+        for (int i = 0; i < indices.length; i++) {
+            indices[i]++;
+        }
+        return indices;
+    }
+
+    /**
+     * Returns the 0-based positions of the tasks with the given IDs, in list order.
+     * IDs ascend in list order unless a task was inserted mid-list, so sorting is
+     * usually skipped.
+     */
+    private int[] positionsOf(long[] ids) {
+        int[] positions = new int[ids.length];
+        boolean isSorted = true;
+        for (int i = 0; i < ids.length; i++) {
+            positions[i] = tasks.indexOf(ids[i]);
+            isSorted &= i == 0 || positions[i - 1] < positions[i];
+        }
+        if (!isSorted) {
+            Arrays.sort(positions);
+        }
+        return positions;
+    }
+
+    private Task peekById(long id) {
+        return tasks.peek(tasks.indexOf(id));
+    }
+
+    /**
+     * Returns the tasks with the given IDs in the given order, for display.
+     * Compactly stored tasks come back as throwaway views.
+     */
+    private List<Task> peekAll(long[] ids) {
+        List<Task> out = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            out.add(peekById(id));
+        }
+        return out;
+    }
+
+    /**
+     * Marks every task at the given positions as completed and saves the list once.
+     *
+     * @param indicesOneBased the 1-based positions, in ascending order without duplicates.
+     * @return the tasks that were marked.
+     * @throws IOException if saving the updated list fails.
+     * @throws LockyException if any position is invalid; nothing is changed then.
+     */
+    public List<Task> markAll(int[] indicesOneBased) throws IOException, LockyException {
+        checkIndices(indicesOneBased);
+        boolean isOwnBatch = startBulk();
+        List<Task> changed = new ArrayList<>(indicesOneBased.length);
+        for (int index : indicesOneBased) {
+            changed.add(mark(index));
+        }
+        endBulk(isOwnBatch);
+        return changed;
+    }
+
+    /**
+     * Marks every task at the given positions as not completed and saves the list once.
+     *
+     * @param indicesOneBased the 1-based positions, in ascending order without duplicates.
+     * @return the tasks that were unmarked.
+     * @throws IOException if saving the updated list fails.
+     * @throws LockyException if any position is invalid; nothing is changed then.
+     */
+    public List<Task> unmarkAll(int[] indicesOneBased) throws IOException, LockyException {
+        checkIndices(indicesOneBased);
+        boolean isOwnBatch = startBulk();
+        List<Task> changed = new ArrayList<>(indicesOneBased.length);
+        for (int index : indicesOneBased) {
+            changed.add(unmark(index));
+        }
+        endBulk(isOwnBatch);
+        return changed;
+    }
+
+    /**
+     * Deletes every task at the given positions and saves the list once.
+     * Positions refer to the list before any of them is deleted.
+     *
+     * @param indicesOneBased the 1-based positions, in ascending order without duplicates.
+     * @return the tasks that were deleted.
+     * @throws IOException if saving the updated list fails.
+     * @throws LockyException if any position is invalid; nothing is changed then.
+     */
+    public List<Task> deleteAll(int[] indicesOneBased) throws IOException, LockyException {
+        checkIndices(indicesOneBased);
+        // positions shift as tasks go, so resolve them to stable IDs first
+        long[] ids = new long[indicesOneBased.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = tasks.idAt(indicesOneBased[i] - 1);
+        }
+        boolean isOwnBatch = startBulk();
+        List<Task> deleted = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            deleted.add(deleteById(id));
+        }
+        endBulk(isOwnBatch);
+        return deleted;
+    }
+
+    private void checkIndices(int[] indicesOneBased) throws LockyException {
+        for (int index : indicesOneBased) {
+            checkIndex(index);
+        }
+    }
+
+    /**
+     * Collects the changes of a bulk operation into a batch unless one is already
+     * open, so that they reach storage with a single save.
+     *
+     * @return true if this call opened the batch and must commit it.
+     */
+    private boolean startBulk() {
+        if (undoLog != null) {
+            return false;
+        }
+        openUndoLog();
+        return true;
+    }
+
+    private void endBulk(boolean isOwnBatch) throws IOException, LockyException {
+        if (!isOwnBatch) {
+            return;
+        }
+        try {
+            commitBatch();
+        } catch (IOException | RuntimeException e) {
+            rollbackBatch();
+            throw e;
+        }
+    }
+
     /**
      * Finds a list of tasks with descriptions
-     * matching the given keyword.
+     * matching the given query.
      *
-     * @param keyword String matcher.
-     * @return ArrayList of tasks containing keyword in description.
+     * @param keyword query as understood by {@link TextIndex#search(String)}.
+     * @return TaskList of matching tasks, in list order.
      */
     private TaskList find(String keyword) {
-        ArrayList<Task> resultsArray = new ArrayList<>();
-        String key = keyword.trim().toLowerCase();
-
-        // iterate through each task to find matching descriptions
-        for (Task t : tasks) {
-            assert t != null : "Task must not be null";
-            assert t.getDescription() != null : "Task description must not be null";
-            if (t != null && t.isMatching(key)) {
-                resultsArray.add(t);
+        List<Task> matches = new ArrayList<>();
+        for (int position : positionsOf(words().search(keyword))) {
+            matches.add(tasks.peek(position));
+        }
+        return new TaskList(matches);
+    }
+
+    /**
+     * Returns the inverted index over task descriptions, building it on first use.
+     *
+     * @return the up-to-date text index.
+     */
+    private TextIndex words() {
+        if (textIndex == null) {
+            textIndex = new TextIndex(this::peekById);
+            for (int i = 0; i < tasks.size(); i++) {
+                Task t = tasks.peek(i);
+                assert t != null : "Task must not be null";
+                assert t.getDescription() != null : "Task description must not be null";
+                textIndex.add(tasks.idAt(i), t);
             }
         }
-        return new TaskList(resultsArray);
+        return textIndex;
+    }
+
+    /**
+     * Returns the time-ordered index over deadlines and event starts, building it on first use.
+     *
+     * @return the up-to-date time index.
+     */
+    private TimeIndex timeline() {
+        if (timeIndex == null) {
+            timeIndex = new TimeIndex();
+            for (int i = 0; i < tasks.size(); i++) {
+                timeIndex.add(tasks.idAt(i), tasks.peek(i));
+            }
+        }
+        return timeIndex;
+    }
+
+    /**
+     * Builds every index that is built lazily. Building them walks the whole
+     * list, which decodes every task of a lazily loaded file. The indexes keep
+     * stable IDs rather than tasks, so compactly stored tasks are not pinned.
+     */
+    void buildIndexes() {
+        events();
+        words();
+        timeline();
+    }
+
+    boolean isIndexed() {
+        return eventIndex != null && textIndex != null && timeIndex != null;
+    }
+
+    /**
+     * Updates every index built so far after {@code t} was appended to the list.
+     * Indexes that have not been built yet pick the task up when they are.
+     */
+    private void indexAdded(Task t) {
+        long id = tasks.idAt(tasks.size() - 1);
+        if (eventIndex != null && t instanceof Event e) {
+            eventIndex.add(id, e);
+        }
+        if (textIndex != null) {
+            textIndex.add(id, t);
+        }
+        if (timeIndex != null) {
+            timeIndex.add(id, t);
+        }
+    }
+
+    private void indexRemoved(long id, Task t) {
+        if (eventIndex != null && t instanceof Event) {
+            eventIndex.remove(id);
+        }
+        if (textIndex != null) {
+            textIndex.remove(id, t);
+        }
+        if (timeIndex != null) {
+            timeIndex.remove(id, t);
+        }
     }
 
     /**
@@ -223,11 +546,182 @@ public class TaskList {
     }
 
     /**
-     * Saves the current task list to persistent storage.
+     * Formats the deadlines and events whose time is before the given time,
+     * earliest first. Events are placed by their start time.
+     *
+     * @param time the exclusive upper bound.
+     * @return String of matching tasks, or a message if there are none.
+     */
+    public String formatDueBefore(LocalDateTime time) {
+        return formatScheduled(timeline().before(time));
+    }
+
+    /**
+     * Formats the deadlines and events whose time lies between the two given
+     * times inclusive, earliest first.
+     *
+     * @param from the inclusive lower bound.
+     * @param to the inclusive upper bound.
+     * @return String of matching tasks, or a message if there are none.
+     */
+    public String formatBetween(LocalDateTime from, LocalDateTime to) {
+        return formatScheduled(timeline().between(from, to));
+    }
+
+    /**
+     * Formats the next {@code count} deadlines and events at or after the given time.
+     *
+     * @param from the inclusive lower bound, usually the current time.
+     * @param count the maximum number of tasks to show.
+     * @return String of matching tasks, or a message if there are none.
+     */
+    public String formatNext(LocalDateTime from, int count) {
+        return formatScheduled(timeline().next(from, count));
+    }
+
+    private String formatScheduled(long[] scheduled) {
+        if (scheduled.length == 0) {
+            return "Nothing scheduled in that range.\n";
+        }
+        return new TaskList(peekAll(scheduled)).getListString();
+    }
+
+    /**
+     * Starts a batch. Until {@link #commitBatch()} or {@link #rollbackBatch()},
+     * changes are applied in memory only and nothing is written to storage.
+     *
+     * @throws LockyException if a batch is already in progress.
+     */
+    public void beginBatch() throws LockyException {
+        if (undoLog != null) {
+            throw new LockyException("Already in a batch. Finish it with \"commit\" or \"rollback\".");
+        }
+        openUndoLog();
+    }
+
+    /**
+     * Ends the current batch and persists all of its changes with a single save.
+     * If the save fails the batch stays open, so it can be committed again or
+     * rolled back.
+     *
+     * @return the number of changes in the batch.
+     * @throws IOException if saving the list fails.
+     * @throws LockyException if no batch is in progress.
+     */
+    public int commitBatch() throws IOException, LockyException {
+        if (undoLog == null) {
+            throw new LockyException("No batch to commit. Start one with \"begin\".");
+        }
+        int changes = undoLog.size();
+        if (changes > 0) {
+            storage.save(tasks);
+        }
+        closeUndoLog();
+        return changes;
+    }
+
+    /**
+     * Ends the current batch and undoes all of its changes, newest first.
+     * The indexes are dropped and rebuilt on next use. The batch ends even if
+     * an undo step fails; the remaining steps still run and the first failure
+     * is rethrown, so that the batch is never left half undone and open.
+     *
+     * @return the number of changes undone.
+     * @throws LockyException if no batch is in progress.
+     */
+    public int rollbackBatch() throws LockyException {
+        if (undoLog == null) {
+            throw new LockyException("No batch to roll back.");
+        }
+        int changes = undoLog.size();
+        RuntimeException failure = null;
+        try {
+            while (!undoLog.isEmpty()) {
+                try {
+                    undoLog.pop().run();
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+        } finally {
+            closeUndoLog();
+            eventIndex = null;
+            textIndex = null;
+            timeIndex = null;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return changes;
+    }
+
+    public boolean isInBatch() {
+        return undoLog != null;
+    }
+
+    /**
+     * Returns the number of changes made so far in the current batch.
+     *
+     * @return the number of uncommitted changes, or 0 if no batch is in progress.
+     */
+    public int getBatchChangeCount() {
+        return undoLog == null ? 0 : undoLog.size();
+    }
+
+    /**
+     * Opens the undo log. The undo entries refer to tombstones and stable IDs,
+     * so the list must not compact them away until the log is closed.
+     */
+    private void openUndoLog() {
+        undoLog = new ArrayDeque<>();
+        tasks.holdCompaction(true);
+    }
+
+    private void closeUndoLog() {
+        undoLog = null;
+        tasks.holdCompaction(false);
+    }
+
+    private void logDoneChange(int index) {
+        if (undoLog == null) {
+            return;
+        }
+        // the position may change before rollback, the ID does not
+        long id = tasks.idAt(index);
+        boolean wasDone = tasks.peek(index).getDone();
+        undoLog.push(() -> tasks.setDone(tasks.indexOf(id), wasDone));
+    }
+
+    private void persistAdded(Task t) throws IOException {
+        if (undoLog != null) {
+            undoLog.push(() -> tasks.remove(tasks.size() - 1));
+            return;
+        }
+        storage.saveAdded(tasks, t);
+    }
+
+    private void persistUpdated(int index) throws IOException {
+        if (undoLog == null) {
+            storage.saveUpdated(tasks, index);
+        }
+    }
+
+    private void persistDeleted(int index) throws IOException {
+        if (undoLog == null) {
+            storage.saveDeleted(tasks, index);
+        }
+    }
+
+    /**
+     * Blocks until all changes to the list have been persisted.
      *
-     * @throws IOException if an I/O error occurs during saving.
+     * @throws IOException if a deferred save failed.
      */
-    private void save() throws IOException {
-        storage.save(tasks);
+    public void flush() throws IOException {
+        storage.flush();
     }
 }
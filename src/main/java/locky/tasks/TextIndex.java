@@ -0,0 +1,236 @@
+package locky.tasks;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Represents an inverted index from lower-cased description tokens to tasks.
+ * Tokens are the whitespace-separated words of a description. Tasks are
+ * identified by their stable task ID, so the index does not hold on to any
+ * {@code Locky.tasks.Task}; the few tasks a phrase query has to check are
+ * looked up by ID when it runs. A token found in a single task, as most are,
+ * maps to its boxed ID rather than to a set.
+ *
+ * <p>Queries are answered from the postings of matching tokens, so tasks that
+ * do not match are never looked at. A query term keeps the substring meaning of
+ * {@link Task#isMatching(String)}: any token containing the term matches. A term
+ * ending in {@code *} matches tokens starting with it instead. Terms can be
+ * combined with {@code AND} and {@code OR}, where {@code AND} binds tighter.</p>
+ *
+ * <p>The steps that are linear in the index size run on the common
+ * {@code ForkJoinPool} once they cover at least {@link #PARALLEL_THRESHOLD}
+ * elements. These steps are scanning the vocabulary for a substring, checking
+ * phrase order and sorting the hits by ID. Below the threshold, or on a single
+ * core, they stay sequential so small lists do not pay for the hand-off. Both
+ * ways give the same results.</p>
+ *
+ * <p>The threshold is fixed, not tuned at run time. Its default of 16384 is a
+ * conservative guess, not a measured crossover: {@code TextIndexBenchmark}
+ * measures both ways at several index sizes, and
+ * {@code -Dlocky.find.parallelThreshold=N} overrides the default.</p>
+ */
+class TextIndex {
+    /** Sequential below this many elements, and always on a single core. */
+    static final int PARALLEL_THRESHOLD = ForkJoinPool.getCommonPoolParallelism() > 1
+            ? Integer.getInteger("locky.find.parallelThreshold", 1 << 14)
+            : Integer.MAX_VALUE;
+
+    // a Long for a token of one task, a Set<Long> for a token of several
+    private final TreeMap<String, Object> postings = new TreeMap<>();
+    private final LongFunction<Task> lookup;
+    private final int parallelThreshold;
+
+    /**
+     * Creates an index that looks tasks up by ID through {@code lookup}.
+     *
+     * @param lookup returns the task with a given ID; only called on the thread running a query.
+     */
+    TextIndex(LongFunction<Task> lookup) {
+        this(lookup, PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Creates an index that goes parallel at the given size instead of the default.
+     *
+     * @param lookup returns the task with a given ID; only called on the thread running a query.
+     * @param parallelThreshold the smallest number of elements to process in parallel.
+     */
+    TextIndex(LongFunction<Task> lookup, int parallelThreshold) {
+        this.lookup = lookup;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Adds a task under its ID. Each ID is added once.
+     *
+     * @param id the task's stable ID.
+     * @param task the task whose description to index.
+     */
+    void add(long id, Task task) {
+        Long key = id; // boxed once, shared by all of the task's postings
+        for (String token : tokenize(task.getDescription())) {
+            postings.merge(token, key, TextIndex::union);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object union(Object posting, Object id) {
+        if (posting instanceof Set<?> ids) {
+            ((Set<Long>) ids).add((Long) id);
+            return ids;
+        }
+        if (posting.equals(id)) {
+            return posting;
+        }
+        Set<Long> ids = new HashSet<>(4);
+        ids.add((Long) posting);
+        ids.add((Long) id);
+        return ids;
+    }
+
+    /**
+     * Removes a task from the index if it is present.
+     *
+     * @param id the task's stable ID.
+     * @param task the task, whose description gives the postings to remove it from.
+     */
+    void remove(long id, Task task) {
+        for (String token : tokenize(task.getDescription())) {
+            Object posting = postings.get(token);
+            if (posting instanceof Set<?> ids) {
+                ids.remove(id);
+                if (ids.size() == 1) {
+                    postings.put(token, ids.iterator().next());
+                }
+            } else if (posting != null && (Long) posting == id) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    /**
+     * Returns the IDs of the tasks matching the query, in ascending order.
+     *
+     * @param query the search query.
+     * @return the matching IDs.
+     */
+    long[] search(String query) {
+        Set<Long> hits = new HashSet<>();
+        for (String clause : query.trim().split("\\s+OR\\s+")) {
+            Set<Long> clauseHits = null;
+            for (String term : clause.split("\\s+AND\\s+")) {
+                Set<Long> termHits = matchTerm(term.trim().toLowerCase());
+                if (clauseHits == null) {
+                    clauseHits = termHits;
+                } else {
+                    clauseHits.retainAll(termHits);
+                }
+                if (clauseHits.isEmpty()) {
+                    break;
+                }
+            }
+            hits.addAll(clauseHits);
+        }
+        long[] ordered = hits.stream().mapToLong(Long::longValue).toArray();
+        if (ordered.length < parallelThreshold) {
+            Arrays.sort(ordered);
+        } else {
+            Arrays.parallelSort(ordered);
+        }
+        return ordered;
+    }
+
+    private Set<Long> matchTerm(String term) {
+        Set<Long> result = new HashSet<>();
+        if (term.isEmpty()) {
+            return result;
+        }
+        String[] words = tokenize(term);
+        if (words.length == 1 && term.length() > 1 && term.endsWith("*")) {
+            String prefix = term.substring(0, term.length() - 1);
+            for (Object posting : postings.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+                addTo(result, posting);
+            }
+            return result;
+        }
+
+        for (int i = 0; i < words.length; i++) {
+            Set<Long> wordHits = idsWithTokenContaining(words[i]);
+            if (i == 0) {
+                result = wordHits;
+            } else {
+                result.retainAll(wordHits);
+            }
+            if (result.isEmpty()) {
+                return result;
+            }
+        }
+        if (words.length > 1) {
+            // every word occurs, but a phrase must also occur in order
+            result = inOrder(result, term);
+        }
+        return result;
+    }
+
+    /**
+     * Keeps the candidates whose description contains the phrase. The tasks are
+     * looked up on this thread; only the matching runs in parallel.
+     */
+    private Set<Long> inOrder(Set<Long> candidates, String phrase) {
+        long[] ids = candidates.stream().mapToLong(Long::longValue).toArray();
+        Task[] tasks = new Task[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            tasks[i] = lookup.apply(ids[i]);
+        }
+        IntStream positions = IntStream.range(0, ids.length);
+        if (ids.length >= parallelThreshold) {
+            positions = positions.parallel();
+        }
+        return positions.filter(i -> tasks[i].isMatchingKey(phrase))
+                .mapToObj(i -> ids[i])
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private Set<Long> idsWithTokenContaining(String word) {
+        if (postings.size() >= parallelThreshold) {
+            return postings.entrySet().parallelStream()
+                    .filter(entry -> entry.getKey().contains(word))
+                    .flatMap(entry -> streamOf(entry.getValue()))
+                    .collect(Collectors.toCollection(HashSet::new));
+        }
+        Set<Long> result = new HashSet<>();
+        for (Map.Entry<String, Object> entry : postings.entrySet()) {
+            if (entry.getKey().contains(word)) {
+                addTo(result, entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void addTo(Set<Long> result, Object posting) {
+        if (posting instanceof Set<?> ids) {
+            result.addAll((Set<Long>) ids);
+        } else {
+            result.add((Long) posting);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Stream<Long> streamOf(Object posting) {
+        return posting instanceof Set<?> ids ? ((Set<Long>) ids).stream() : Stream.of((Long) posting);
+    }
+
+    private static String[] tokenize(String text) {
+        String trimmed = text.trim().toLowerCase();
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+    }
+}
@@ -0,0 +1,129 @@
+package locky.tasks;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.LongStream;
+
+/**
+ * Represents a time-ordered index over deadline due times and event start times,
+ * keyed by epoch minute. Range queries cost O(log n) plus the size of the result.
+ * Tasks sharing a minute are kept in the order they were added. Tasks are
+ * identified by their stable task ID, so the index does not hold on to any
+ * {@code Locky.tasks.Task}.
+ */
+class TimeIndex {
+    private final TreeMap<Long, List<Long>> byMinute = new TreeMap<>();
+
+    /**
+     * Returns the time a task is indexed under: a deadline's due time or
+     * an event's start time.
+     *
+     * @param task the task to inspect.
+     * @return the task's time, or null for tasks without one.
+     */
+    static LocalDateTime timeOf(Task task) {
+        if (task instanceof Deadline d) {
+            return d.getDeadline();
+        } else if (task instanceof Event e) {
+            return e.getStart();
+        }
+        return null;
+    }
+
+    private static long toMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * Adds a task to the index; tasks without a time are ignored.
+     *
+     * @param id the task's stable ID.
+     * @param task the task whose time to index.
+     */
+    void add(long id, Task task) {
+        LocalDateTime time = timeOf(task);
+        if (time == null) {
+            return;
+        }
+        byMinute.computeIfAbsent(toMinute(time), k -> new ArrayList<>(1)).add(id);
+    }
+
+    /**
+     * Removes a task from the index if it is present.
+     *
+     * @param id the task's stable ID.
+     * @param task the task, whose time gives the minute to remove it from.
+     */
+    void remove(long id, Task task) {
+        LocalDateTime time = timeOf(task);
+        if (time == null) {
+            return;
+        }
+        long key = toMinute(time);
+        List<Long> ids = byMinute.get(key);
+        if (ids == null) {
+            return;
+        }
+        ids.remove(Long.valueOf(id));
+        if (ids.isEmpty()) {
+            byMinute.remove(key);
+        }
+    }
+
+    /**
+     * Returns the tasks whose time is strictly before {@code time}, earliest first.
+     *
+     * @param time the exclusive upper bound.
+     * @return the IDs of the matching tasks.
+     */
+    long[] before(LocalDateTime time) {
+        return flatten(byMinute.headMap(toMinute(time), false).values());
+    }
+
+    /**
+     * Returns the tasks whose time lies in {@code [from, to]}, earliest first.
+     *
+     * @param from the inclusive lower bound.
+     * @param to the inclusive upper bound.
+     * @return the IDs of the matching tasks.
+     */
+    long[] between(LocalDateTime from, LocalDateTime to) {
+        return flatten(byMinute.subMap(toMinute(from), true, toMinute(to), true).values());
+    }
+
+    /**
+     * Returns up to {@code count} tasks whose time is at or after {@code from}, earliest first.
+     *
+     * @param from the inclusive lower bound.
+     * @param count the maximum number of tasks to return.
+     * @return the IDs of the matching tasks.
+     */
+    long[] next(LocalDateTime from, int count) {
+        LongStream.Builder out = LongStream.builder();
+        int found = 0;
+        for (List<Long> ids : byMinute.tailMap(toMinute(from), true).values()) {
+            for (long id : ids) {
+                if (found == count) {
+                    return out.build().toArray();
+                }
+                out.add(id);
+                found++;
+            }
+        }
+        return out.build().toArray();
+    }
+
+    private static long[] flatten(Collection<List<Long>> groups) {
+        LongStream.Builder out = LongStream.builder();
+        for (List<Long> ids : groups) {
+            for (long id : ids) {
+                out.add(id);
+            }
+        }
+        return out.build().toArray();
+    }
+}
@@ -0,0 +1,353 @@
+package locky.utils;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import locky.tasks.Deadline;
+import locky.tasks.Event;
+import locky.tasks.Task;
+import locky.tasks.Todo;
+
+/**
+ * Represents a {@code Locky.utils.Storage} that moves persistence off the
+ * command thread. Every mutation is recorded as a change holding its own copy
+ * of the task it touched, so recording costs the same for any list size and
+ * the writer never reads task objects the command thread may still change.
+ * Only the first mutation and full saves copy the whole list.
+ *
+ * <p>A single writer thread waits for the flush interval, then applies the
+ * recorded changes to its private copy of the list. If the wrapped storage
+ * {@linkplain Storage#hasIncrementalSaves() saves changes incrementally}, e.g.
+ * a {@link JournaledStorage}, each change is forwarded as it was made;
+ * otherwise a burst of changes collapses into one full save.</p>
+ *
+ * <p>A failed background write is reported by the next call that touches this
+ * storage. {@link #flush()} blocks until everything recorded so far is on disk.
+ * {@link #close()} is also run from a shutdown hook.</p>
+ */
+public class AsyncStorage extends Storage {
+    private static final long DEFAULT_FLUSH_MILLIS = 200;
+
+    private enum Kind { SAVE, ADD, UPDATE, DELETE }
+
+    /**
+     * One recorded mutation. {@code task} is a copy of the added or updated task;
+     * {@code snapshot} is a copy of the whole list for {@link Kind#SAVE}.
+     */
+    private record Change(Kind kind, int index, Task task, List<Task> snapshot) {
+    }
+
+    private final Storage delegate;
+    private final long flushMillis;
+    private final Object lock = new Object();
+    private final Thread writer;
+    private final Thread shutdownHook;
+
+    private final ArrayDeque<Change> pending = new ArrayDeque<>();
+    private boolean hasSnapshot;
+    private long generation;
+    private long writtenGeneration;
+    private boolean isFlushRequested;
+    private boolean isClosed;
+    private IOException failure;
+
+    // owned by the writer thread
+    private ArrayList<Task> mirror = new ArrayList<>();
+    private boolean isMirrorUnsaved;
+
+    /**
+     * Creates an asynchronous wrapper around {@code delegate}. The flush interval
+     * is read from the {@code locky.async.flushMillis} system property and
+     * defaults to 200 ms.
+     *
+     * @param delegate the storage that performs the actual writes.
+     */
+    public AsyncStorage(Storage delegate) {
+        this(delegate, Long.getLong("locky.async.flushMillis", DEFAULT_FLUSH_MILLIS));
+    }
+
+    /**
+     * Creates an asynchronous wrapper around {@code delegate}.
+     *
+     * @param delegate the storage that performs the actual writes.
+     * @param flushMillis how long the writer waits for further mutations before writing.
+     */
+    public AsyncStorage(Storage delegate, long flushMillis) {
+        super(delegate.file.getPath());
+        this.delegate = delegate;
+        this.flushMillis = flushMillis;
+        this.writer = new Thread(this::runWriter, "locky-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        this.shutdownHook = new Thread(this::closeQuietly, "locky-writer-exit");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    @Override
+    public ArrayList<Task> load() throws IOException {
+        return delegate.load();
+    }
+
+    @Override
+    public List<Task> loadLazily() throws IOException {
+        return delegate.loadLazily();
+    }
+
+    @Override
+    public void save(List<Task> list) throws IOException {
+        enqueue(list, Kind.SAVE, -1, null);
+    }
+
+    @Override
+    public void saveAdded(List<Task> list, Task added) throws IOException {
+        enqueue(list, Kind.ADD, list.size() - 1, added);
+    }
+
+    @Override
+    public void saveUpdated(List<Task> list, int index) throws IOException {
+        enqueue(list, Kind.UPDATE, index, list.get(index));
+    }
+
+    @Override
+    public void saveDeleted(List<Task> list, int index) throws IOException {
+        enqueue(list, Kind.DELETE, index, null);
+    }
+
+    @Override
+    protected boolean hasIncrementalSaves() {
+        return true;
+    }
+
+    /**
+     * Blocks until every mutation recorded so far has been written.
+     *
+     * @throws IOException if a background write failed or this storage is closed.
+     */
+    @Override
+    public void flush() throws IOException {
+        synchronized (lock) {
+            checkOpen();
+            long target = generation;
+            isFlushRequested = true;
+            lock.notifyAll();
+            try {
+                while (writtenGeneration < target) {
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while flushing", e);
+            } finally {
+                isFlushRequested = false;
+            }
+            rethrowFailure();
+        }
+        delegate.flush();
+    }
+
+    /**
+     * Flushes outstanding writes, stops the writer thread and removes the
+     * shutdown hook. Closing an already closed storage does nothing.
+     *
+     * @throws IOException if a background write failed.
+     */
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (isClosed) {
+                return;
+            }
+        }
+        try {
+            flush();
+        } finally {
+            synchronized (lock) {
+                isClosed = true;
+                lock.notifyAll();
+            }
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // already shutting down, possibly inside the hook itself
+            }
+        }
+    }
+
+    /**
+     * Records a change for the writer. Runs on the thread that owns {@code list},
+     * which is also where the delegate releases the loaded list, so the writer's
+     * saves never touch it.
+     */
+    private void enqueue(List<Task> list, Kind kind, int index, Task task) throws IOException {
+        delegate.releaseLoaded();
+        synchronized (lock) {
+            checkOpen();
+            rethrowFailure();
+            if (kind == Kind.SAVE || !hasSnapshot) {
+                // the writer has no copy to apply a single change to yet
+                pending.add(new Change(Kind.SAVE, -1, null, copyOf(list)));
+                hasSnapshot = true;
+            } else {
+                pending.add(new Change(kind, index, task == null ? null : copyOf(task), null));
+            }
+            generation++;
+            lock.notifyAll();
+        }
+    }
+
+    private static ArrayList<Task> copyOf(List<Task> list) {
+        ArrayList<Task> copy = new ArrayList<>(list.size());
+        for (Task t : list) {
+            copy.add(copyOf(t));
+        }
+        return copy;
+    }
+
+    private static Task copyOf(Task t) {
+        if (t instanceof Deadline d) {
+            return new Deadline(d.getDescription(), d.getDone(), d.getDeadline());
+        } else if (t instanceof Event e) {
+            return new Event(e.getDescription(), e.getDone(), e.getStart(), e.getEnd());
+        } else if (t instanceof Todo) {
+            return new Todo(t.getDescription(), t.getDone());
+        }
+        return new Task(t.getDescription(), t.getDone());
+    }
+
+    private void checkOpen() throws IOException {
+        if (isClosed) {
+            throw new IOException("storage for " + file.getName() + " is closed");
+        }
+    }
+
+    private void rethrowFailure() throws IOException {
+        if (failure != null) {
+            IOException e = failure;
+            failure = null;
+            throw e;
+        }
+    }
+
+    private void runWriter() {
+        try {
+            while (true) {
+                ArrayList<Change> batch;
+                long batchGeneration;
+                synchronized (lock) {
+                    while (pending.isEmpty() && !isClosed) {
+                        lock.wait();
+                    }
+                    if (pending.isEmpty()) {
+                        return;
+                    }
+                    long deadline = System.currentTimeMillis() + flushMillis;
+                    long remaining = flushMillis;
+                    while (remaining > 0 && !isFlushRequested && !isClosed) {
+                        lock.wait(remaining);
+                        remaining = deadline - System.currentTimeMillis();
+                    }
+                    batch = new ArrayList<>(pending);
+                    batchGeneration = generation;
+                    pending.clear();
+                }
+
+                IOException error = null;
+                try {
+                    write(batch);
+                } catch (IOException e) {
+                    error = e;
+                } catch (RuntimeException e) {
+                    error = new IOException("background write failed", e);
+                }
+
+                synchronized (lock) {
+                    if (error != null) {
+                        failure = error;
+                    }
+                    writtenGeneration = batchGeneration;
+                    lock.notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Applies a batch of changes to the writer's copy of the list and persists them,
+     * one by one if the wrapped storage saves incrementally and is up to date,
+     * otherwise with a single full save. After a failure the next batch is saved in full.
+     *
+     * @param batch the changes in the order they were made.
+     * @throws IOException if the wrapped storage fails to write.
+     */
+    private void write(List<Change> batch) throws IOException {
+        boolean isIncremental = delegate.hasIncrementalSaves() && !isMirrorUnsaved;
+        for (Change c : batch) {
+            isIncremental &= c.kind() != Kind.SAVE;
+        }
+        isMirrorUnsaved = true;
+        IOException error = null;
+        for (Change c : batch) {
+            apply(c);
+            if (isIncremental && error == null) {
+                try {
+                    forward(c);
+                } catch (IOException e) {
+                    error = e;
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        if (!isIncremental) {
+            delegate.save(mirror);
+        }
+        isMirrorUnsaved = false;
+    }
+
+    private void apply(Change c) {
+        switch (c.kind()) {
+        case SAVE:
+            mirror = new ArrayList<>(c.snapshot());
+            break;
+        case ADD:
+            mirror.add(c.task());
+            break;
+        case UPDATE:
+            mirror.set(c.index(), c.task());
+            break;
+        case DELETE:
+            mirror.remove(c.index());
+            break;
+        default:
+            throw new AssertionError(c.kind());
+        }
+    }
+
+    private void forward(Change c) throws IOException {
+        switch (c.kind()) {
+        case ADD:
+            delegate.saveAdded(mirror, c.task());
+            break;
+        case UPDATE:
+            delegate.saveUpdated(mirror, c.index());
+            break;
+        case DELETE:
+            delegate.saveDeleted(mirror, c.index());
+            break;
+        default:
+            throw new AssertionError(c.kind());
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            System.out.println("(Warning: failed to save: " + e.getMessage() + ")");
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package locky.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import locky.tasks.Deadline;
+import locky.tasks.Event;
+import locky.tasks.Task;
+import locky.tasks.Todo;
+
+/**
+ * Represents a {@code Locky.utils.Storage} that keeps tasks in a compact binary file.
+ *
+ * <p>The file starts with the magic bytes {@code LKYB}, a version byte and the
+ * task count as a varint. Each task is a tag byte followed by its description
+ * as a varint length and UTF-8 bytes, then its times as zigzag varints of
+ * minutes since the epoch (UTC). Times with a non-zero second are stored as
+ * seconds instead, flagged in the tag, and times with a fraction of a second
+ * are each followed by their nanoseconds as a varint, so nothing is lost.
+ * The file ends with a 4-byte CRC-32 of everything before it.</p>
+ *
+ * <p>A text file found at the path is still read, so switching formats only
+ * needs a load followed by a save; see {@link Storage#copyTo(Storage)}.</p>
+ */
+public class BinaryStorage extends Storage {
+    static final byte[] MAGIC = {'L', 'K', 'Y', 'B'};
+    static final int VERSION = 1;
+
+    private static final int TYPE_MASK = 0x03;
+    private static final int TYPE_TODO = 0;
+    private static final int TYPE_DEADLINE = 1;
+    private static final int TYPE_EVENT = 2;
+    private static final int FLAG_DONE = 0x04;
+    private static final int FLAG_SECONDS = 0x08;
+    private static final int FLAG_NANOS = 0x10;
+    private static final int NANOS_PER_SECOND = 1_000_000_000;
+
+    public BinaryStorage(String path) {
+        super(path);
+    }
+
+    /**
+     * Checks whether a file starts with the binary format's magic bytes.
+     *
+     * @param f the file to inspect.
+     * @return true if {@code f} exists and is a binary task file.
+     * @throws IOException if the file cannot be read.
+     */
+    static boolean isBinaryFile(File f) throws IOException {
+        if (!f.isFile() || f.length() < MAGIC.length) {
+            return false;
+        }
+        try (InputStream in = new FileInputStream(f)) {
+            byte[] head = in.readNBytes(MAGIC.length);
+            return Arrays.equals(head, MAGIC);
+        }
+    }
+
+    /**
+     * Loads tasks from the binary file, or from a text file left by the
+     * text format. A file that cannot be decoded for any reason is moved
+     * aside by {@link #quarantineCorruptFile(String, Throwable)} before the
+     * error is reported, so a later save cannot overwrite it.
+     *
+     * @param list the list to append the loaded tasks to.
+     * @throws IOException if the file is truncated, has an unknown version,
+     *                     holds a malformed task, such as an event that ends
+     *                     before it starts, or fails its checksum.
+     */
+    @Override
+    protected void loadInto(List<Task> list) throws IOException {
+        if (!isBinaryFile(file)) {
+            super.loadInto(list);
+            return;
+        }
+        CRC32 crc = new CRC32();
+        boolean isCorrupt;
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(new FileInputStream(file)), crc))) {
+            in.readNBytes(MAGIC.length);
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("unsupported binary storage version " + version);
+            }
+            long count = readVarLong(in);
+            for (long i = 0; i < count; i++) {
+                list.add(readTask(in));
+            }
+            long expected = crc.getValue();
+            isCorrupt = (int) expected != in.readInt();
+        } catch (EOFException e) {
+            quarantineCorruptFile("truncated file", e);
+            return;
+        } catch (IOException | RuntimeException e) {
+            // includes out-of-range times and lengths, which the JDK reports unchecked
+            quarantineCorruptFile(String.valueOf(e.getMessage()), e);
+            return;
+        }
+        if (isCorrupt) {
+            quarantineCorruptFile();
+        }
+    }
+
+    @Override
+    protected long writeSnapshot(File target, List<Task> list) throws IOException {
+        try (FileChannel ch = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(ch)), crc));
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            writeVarLong(out, list.size());
+            for (Task t : list) {
+                writeTask(out, t);
+            }
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            ch.force(true);
+            Metrics.count("storage.bytesWritten", ch.position());
+            return ch.position();
+        }
+    }
+
+    private static void writeTask(DataOutputStream out, Task t) throws IOException {
+        int tag = t.getDone() ? FLAG_DONE : 0;
+        LocalDateTime[] times;
+        if (t instanceof Deadline d) {
+            tag |= TYPE_DEADLINE;
+            times = new LocalDateTime[] {d.getDeadline()};
+        } else if (t instanceof Event e) {
+            tag |= TYPE_EVENT;
+            times = new LocalDateTime[] {e.getStart(), e.getEnd()};
+        } else {
+            tag |= TYPE_TODO;
+            times = new LocalDateTime[0];
+        }
+        boolean hasSeconds = false;
+        boolean hasNanos = false;
+        for (LocalDateTime time : times) {
+            hasSeconds |= time.getSecond() != 0;
+            hasNanos |= time.getNano() != 0;
+        }
+        if (hasSeconds || hasNanos) {
+            tag |= FLAG_SECONDS;
+        }
+        if (hasNanos) {
+            tag |= FLAG_NANOS;
+        }
+
+        out.writeByte(tag);
+        byte[] desc = t.getDescription().getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, desc.length);
+        out.write(desc);
+        for (LocalDateTime time : times) {
+            long seconds = time.toEpochSecond(ZoneOffset.UTC);
+            writeVarLong(out, zigzag(hasSeconds || hasNanos ? seconds : Math.floorDiv(seconds, 60)));
+            if (hasNanos) {
+                writeVarLong(out, time.getNano());
+            }
+        }
+    }
+
+    private static Task readTask(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        boolean isDone = (tag & FLAG_DONE) != 0;
+        long unit = (tag & FLAG_SECONDS) != 0 ? 1 : 60;
+        boolean hasNanos = (tag & FLAG_NANOS) != 0;
+        long length = readVarLong(in);
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("bad description length " + length);
+        }
+        byte[] desc = in.readNBytes((int) length);
+        if (desc.length < length) {
+            throw new EOFException();
+        }
+        String description = new String(desc, StandardCharsets.UTF_8);
+
+        switch (tag & TYPE_MASK) {
+        case TYPE_TODO:
+            return new Todo(description, isDone);
+        case TYPE_DEADLINE:
+            return new Deadline(description, isDone, readTime(in, unit, hasNanos));
+        case TYPE_EVENT:
+            // an event that does not end after it starts fails like any other malformed task
+            return new Event(description, isDone, readTime(in, unit, hasNanos), readTime(in, unit, hasNanos));
+        default:
+            throw new IOException("unknown task tag " + tag);
+        }
+    }
+
+    private static LocalDateTime readTime(DataInputStream in, long unit, boolean hasNanos) throws IOException {
+        long seconds = unzigzag(readVarLong(in)) * unit;
+        long nanos = hasNanos ? readVarLong(in) : 0;
+        if (nanos < 0 || nanos >= NANOS_PER_SECOND) {
+            throw new IOException("bad nanoseconds " + nanos);
+        }
+        return LocalDateTime.ofEpochSecond(seconds, (int) nanos, ZoneOffset.UTC);
+    }
+
+    static void writeVarLong(OutputStream out, long value) throws IOException {
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
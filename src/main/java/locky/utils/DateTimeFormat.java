@@ -1,10 +1,21 @@
 package locky.utils;
 
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * Utility class that centralizes date/time format patterns so they are consistent across
  * the entire application.
+ *
+ * <p>The parse and format helpers read the fixed layouts of {@link #INPUT}, ISO-8601 and
+ * {@link #DISPLAY} by hand, without throwing, and only hand text they cannot read to the
+ * formatters. Results are kept in small bounded caches, since saved task lists tend to
+ * repeat the same timestamps.</p>
  */
 public final class DateTimeFormat {
     public static final DateTimeFormatter INPUT =
@@ -13,5 +24,296 @@ public final class DateTimeFormat {
     public static final DateTimeFormatter DISPLAY =
             DateTimeFormatter.ofPattern("MMM dd uuuu, h:mma");
 
+    private static final List<DateTimeFormatter> STORED_FORMATS = List.of(
+            INPUT,
+            DateTimeFormatter.ISO_LOCAL_DATE_TIME,
+            DISPLAY
+    );
+
+    private static final int CACHE_SIZE = 1024;
+
+    // texts DISPLAY uses in its own locale, so the fast path reads exactly what it writes
+    private static final String[] MONTHS = new String[12];
+    private static final String AM;
+    private static final String PM;
+
+    static {
+        Locale locale = DISPLAY.getLocale();
+        DateTimeFormatter month = DateTimeFormatter.ofPattern("MMM", locale);
+        DateTimeFormatter ampm = DateTimeFormatter.ofPattern("a", locale);
+        for (int m = 1; m <= 12; m++) {
+            MONTHS[m - 1] = month.format(LocalDateTime.of(2000, m, 1, 0, 0));
+        }
+        AM = ampm.format(LocalDateTime.of(2000, 1, 1, 0, 0));
+        PM = ampm.format(LocalDateTime.of(2000, 1, 1, 12, 0));
+    }
+
+    private static final RecentCache<String, LocalDateTime> INPUT_CACHE = new RecentCache<>();
+    private static final RecentCache<String, LocalDateTime> STORED_CACHE = new RecentCache<>();
+    private static final RecentCache<LocalDateTime, String> DISPLAY_CACHE = new RecentCache<>();
+
     private DateTimeFormat() {}
+
+    /**
+     * Parses user input in the {@link #INPUT} layout.
+     *
+     * @param raw the text to parse.
+     * @return the parsed date/time.
+     * @throws DateTimeParseException if the text is not in the {@link #INPUT} layout.
+     */
+    public static LocalDateTime parseInput(String raw) {
+        LocalDateTime cached = INPUT_CACHE.get(raw);
+        if (cached != null) {
+            return cached;
+        }
+        LocalDateTime parsed = readInput(raw);
+        if (parsed == null) {
+            parsed = LocalDateTime.parse(raw, INPUT);
+        }
+        INPUT_CACHE.put(raw, parsed);
+        return parsed;
+    }
+
+    /**
+     * Parses a stored date/time, trying the {@link #INPUT}, ISO-8601 and {@link #DISPLAY}
+     * layouts in that order.
+     *
+     * @param raw the text to parse.
+     * @return the parsed date/time, or null if no layout matches.
+     */
+    public static LocalDateTime parseStored(String raw) {
+        LocalDateTime parsed = STORED_CACHE.get(raw);
+        if (parsed != null) {
+            return parsed;
+        }
+        parsed = readInput(raw);
+        if (parsed == null) {
+            parsed = readIso(raw);
+        }
+        if (parsed == null) {
+            parsed = readDisplay(raw);
+        }
+        if (parsed == null) {
+            parsed = parseWithFormatters(raw);
+        }
+        if (parsed != null) {
+            STORED_CACHE.put(raw, parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * Returns whether a stored date/time is in one of the layouts read without
+     * the formatters. Takes any character sequence, so that text can be checked
+     * without copying it into a String first.
+     *
+     * @param text the text to check.
+     * @return true if {@link #parseStored(String)} would read it on the fast path.
+     */
+    static boolean isFastStored(CharSequence text) {
+        return readInput(text) != null || readIso(text) != null || readDisplay(text) != null;
+    }
+
+    private static LocalDateTime parseWithFormatters(String raw) {
+        for (DateTimeFormatter fmt : STORED_FORMATS) {
+            try {
+                return LocalDateTime.parse(raw, fmt);
+            } catch (DateTimeParseException ignore) {
+                // try next
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Formats a date/time in the {@link #DISPLAY} layout.
+     *
+     * @param time the date/time to format.
+     * @return the formatted text.
+     */
+    public static String formatDisplay(LocalDateTime time) {
+        String cached = DISPLAY_CACHE.get(time);
+        if (cached != null) {
+            return cached;
+        }
+        String text = writeDisplay(time);
+        DISPLAY_CACHE.put(time, text);
+        return text;
+    }
+
+    /**
+     * Reads {@code yyyy-MM-dd HHmm}. Returns null for anything the formatter might
+     * read differently, such as a day past the end of the month, which it clamps.
+     */
+    static LocalDateTime readInput(CharSequence s) {
+        if (s.length() != 15 || s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != ' ') {
+            return null;
+        }
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 13, 2);
+        if (year < 1 || !isValidDate(year, month, day) || !isValidTime(hour, minute, 0)) {
+            return null;
+        }
+        return LocalDateTime.of(year, month, day, hour, minute);
+    }
+
+    /**
+     * Reads {@code yyyy-MM-ddTHH:mm} and {@code yyyy-MM-ddTHH:mm:ss}, as written by
+     * {@code LocalDateTime.toString()} for whole minutes and seconds.
+     */
+    static LocalDateTime readIso(CharSequence s) {
+        int length = s.length();
+        if ((length != 16 && length != 19) || s.charAt(4) != '-' || s.charAt(7) != '-'
+                || s.charAt(10) != 'T' || s.charAt(13) != ':') {
+            return null;
+        }
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        int second = 0;
+        if (length == 19) {
+            if (s.charAt(16) != ':') {
+                return null;
+            }
+            second = digits(s, 17, 2);
+        }
+        if (year < 0 || !isValidDate(year, month, day) || !isValidTime(hour, minute, second)) {
+            return null;
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second);
+    }
+
+    /**
+     * Reads {@code MMM dd uuuu, h:mma} using the month and am/pm texts of {@link #DISPLAY}.
+     */
+    static LocalDateTime readDisplay(CharSequence s) {
+        int month = 0;
+        int i = 0;
+        for (int m = 0; m < 12; m++) {
+            String name = MONTHS[m];
+            if (s.length() > name.length() && startsWith(s, 0, name) && s.charAt(name.length()) == ' ') {
+                month = m + 1;
+                i = name.length() + 1;
+                break;
+            }
+        }
+        if (month == 0 || s.length() < i + 14 || s.charAt(i + 2) != ' '
+                || s.charAt(i + 7) != ',' || s.charAt(i + 8) != ' ') {
+            return null;
+        }
+        int day = digits(s, i, 2);
+        int year = digits(s, i + 3, 4);
+        i += 9;
+        int hourDigits = s.charAt(i + 1) == ':' ? 1 : 2;
+        int hour = digits(s, i, hourDigits);
+        i += hourDigits;
+        if (s.length() < i + 3 || s.charAt(i) != ':') {
+            return null;
+        }
+        int minute = digits(s, i + 1, 2);
+        boolean isPm = isAt(s, i + 3, PM);
+        if (!isPm && !isAt(s, i + 3, AM)) {
+            return null;
+        }
+        if (year < 0 || !isValidDate(year, month, day) || hour < 1 || hour > 12
+                || !isValidTime(hour, minute, 0)) {
+            return null;
+        }
+        return LocalDateTime.of(year, month, day, hour % 12 + (isPm ? 12 : 0), minute);
+    }
+
+    private static boolean isAt(CharSequence s, int from, String text) {
+        return s.length() - from == text.length() && startsWith(s, from, text);
+    }
+
+    private static boolean startsWith(CharSequence s, int from, String text) {
+        if (s.length() - from < text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (s.charAt(from + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String writeDisplay(LocalDateTime time) {
+        int year = time.getYear();
+        if (year < 0 || year > 9999) {
+            return DISPLAY.format(time);
+        }
+        int hour = time.getHour() % 12;
+        StringBuilder sb = new StringBuilder(24);
+        sb.append(MONTHS[time.getMonthValue() - 1]).append(' ');
+        pad(sb, time.getDayOfMonth(), 2).append(' ');
+        pad(sb, year, 4).append(", ");
+        sb.append(hour == 0 ? 12 : hour).append(':');
+        pad(sb, time.getMinute(), 2);
+        return sb.append(time.getHour() < 12 ? AM : PM).toString();
+    }
+
+    private static StringBuilder pad(StringBuilder sb, int value, int width) {
+        for (int limit = 10, i = 1; i < width; i++, limit *= 10) {
+            if (value < limit) {
+                sb.append('0');
+            }
+        }
+        return sb.append(value);
+    }
+
+    /**
+     * Returns the value of {@code count} ASCII digits at {@code from}, or -1 if any is not a digit.
+     */
+    private static int digits(CharSequence s, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isValidDate(int year, int month, int day) {
+        return month >= 1 && month <= 12 && day >= 1
+                && day <= Month.of(month).length(Year.isLeap(year));
+    }
+
+    private static boolean isValidTime(int hour, int minute, int second) {
+        return hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59 && second >= 0 && second <= 59;
+    }
+
+    /**
+     * Represents a fixed-size, direct-mapped cache. Each slot holds one immutable
+     * entry, so readers on other threads see either a whole entry or none, and a
+     * colliding key simply replaces the older one.
+     */
+    private static final class RecentCache<K, V> {
+        private final Entry<?, ?>[] slots = new Entry<?, ?>[CACHE_SIZE];
+
+        private record Entry<K, V>(K key, V value) {}
+
+        @SuppressWarnings("unchecked")
+        V get(K key) {
+            Entry<K, V> e = (Entry<K, V>) slots[slotOf(key)];
+            return e != null && e.key().equals(key) ? e.value() : null;
+        }
+
+        void put(K key, V value) {
+            slots[slotOf(key)] = new Entry<>(key, value);
+        }
+
+        private static int slotOf(Object key) {
+            int h = key.hashCode();
+            return (h ^ (h >>> 16)) & (CACHE_SIZE - 1);
+        }
+    }
 }
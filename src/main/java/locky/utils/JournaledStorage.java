@@ -0,0 +1,361 @@
+package locky.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import locky.events.StorageSaveEvent;
+import locky.tasks.Task;
+
+/**
+ * Represents a {@code Locky.utils.Storage} that appends each mutation to a
+ * write-ahead journal instead of rewriting the whole snapshot file.
+ * Loading replays the snapshot followed by the journal. Once the journal
+ * grows past a size threshold it is sealed and folded back into a new
+ * snapshot on a background thread. Every record is forced to disk before
+ * the save that wrote it returns. A failed compaction leaves the sealed
+ * journal in place and is reported by the next {@link #save} or {@link #flush()}.
+ *
+ * <p>Journal records are single lines:
+ * {@code A|<serialized task>} for an add,
+ * {@code S|<index>|<0 or 1>} for a completion status change and
+ * {@code X|<index>} for a delete, with 0-based indices. A record only
+ * counts once its terminating newline is on disk, so a record torn by a
+ * crash is dropped rather than applied.</p>
+ */
+public class JournaledStorage extends Storage {
+    private static final long DEFAULT_COMPACT_BYTES = 1L << 20;
+
+    private final File journal;
+    private final File sealed;
+    private final File compacted;
+    private final long compactThreshold;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "locky-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private FileChannel journalChannel;
+    private Future<?> compaction;
+    private volatile IOException compactionFailure;
+
+    /**
+     * Creates a journaled storage for the given snapshot path. The compaction
+     * threshold is read from the {@code locky.journal.compactBytes} system
+     * property and defaults to 1 MiB.
+     *
+     * @param path path to the snapshot file.
+     */
+    public JournaledStorage(String path) {
+        this(path, Long.getLong("locky.journal.compactBytes", DEFAULT_COMPACT_BYTES));
+    }
+
+    /**
+     * Creates a journaled storage for the given snapshot path.
+     *
+     * @param path path to the snapshot file.
+     * @param compactThreshold journal size in bytes after which it is folded into the snapshot.
+     */
+    public JournaledStorage(String path, long compactThreshold) {
+        super(path);
+        this.journal = new File(path + ".journal");
+        this.sealed = new File(path + ".journal.sealed");
+        this.compacted = new File(path + ".compact");
+        this.compactThreshold = compactThreshold;
+    }
+
+    /**
+     * Loads the snapshot and replays any sealed and active journal on top of it.
+     * Leftovers of an interrupted compaction are resolved first.
+     *
+     * @param list the list to append tasks reflecting every recorded mutation to.
+     * @throws IOException if an I/O error occurs while reading.
+     */
+    @Override
+    protected synchronized void loadInto(List<Task> list) throws IOException {
+        recoverCompaction();
+        super.loadInto(list);
+        replay(sealed, list);
+        replay(journal, list);
+    }
+
+    /**
+     * Writes a full snapshot and discards the journals it supersedes. This takes
+     * the same steps as a compaction: the journal is sealed, the snapshot is
+     * written aside, the sealed journal is deleted and only then is the snapshot
+     * moved into place. A crash at any point therefore never replays a record
+     * on top of a snapshot that already holds it; see {@link #recoverCompaction()}.
+     *
+     * @param list the list of tasks to be written to storage.
+     * @throws IOException if an I/O error occurs while writing, or if the
+     *                     last background compaction failed; retrying then writes the snapshot.
+     */
+    @Override
+    public synchronized void save(List<Task> list) throws IOException {
+        awaitCompaction();
+        closeJournal();
+        StorageSaveEvent event = new StorageSaveEvent();
+        event.begin();
+        ensureParentDir();
+        if (journal.exists()) {
+            if (sealed.exists()) {
+                // a failed compaction left it behind; only one journal can be sealed at a time
+                foldSealed();
+            }
+            Files.move(journal.toPath(), sealed.toPath());
+        } else if (!sealed.exists()) {
+            // marks the snapshot written aside as partial until it is complete
+            Files.createFile(sealed.toPath());
+        }
+        long bytes = writeSnapshot(compacted, list);
+        Files.delete(sealed.toPath());
+        replaceAtomically(compacted, file);
+        event.commit(file.getPath(), "snapshot", list.size(), bytes);
+    }
+
+    @Override
+    public synchronized void saveAdded(List<Task> list, Task added) throws IOException {
+        append("A|" + serialize(added), list.size());
+    }
+
+    @Override
+    public synchronized void saveUpdated(List<Task> list, int index) throws IOException {
+        append("S|" + index + "|" + (list.get(index).getDone() ? "1" : "0"), list.size());
+    }
+
+    @Override
+    public synchronized void saveDeleted(List<Task> list, int index) throws IOException {
+        append("X|" + index, list.size());
+    }
+
+    @Override
+    protected boolean hasIncrementalSaves() {
+        return true;
+    }
+
+    /**
+     * Waits for a running compaction to finish. Journal records are already
+     * on disk when their save returns, so there is nothing else to wait for.
+     *
+     * @throws IOException if the last background compaction failed.
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        awaitCompaction();
+    }
+
+    /**
+     * Appends a single record to the active journal, forces it to disk and
+     * triggers a background compaction once the journal is large enough.
+     * No new compaction starts while a sealed journal is still waiting to be folded.
+     *
+     * @param record the journal record, without line terminator.
+     * @param taskCount the number of tasks in the list after the change.
+     * @throws IOException if the record cannot be written.
+     */
+    private void append(String record, int taskCount) throws IOException {
+        StorageSaveEvent event = new StorageSaveEvent();
+        event.begin();
+        if (journalChannel == null) {
+            ensureParentDir();
+            journalChannel = FileChannel.open(journal.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        ByteBuffer bytes = ByteBuffer.wrap((record + "\n").getBytes(StandardCharsets.UTF_8));
+        int written = bytes.remaining();
+        while (bytes.hasRemaining()) {
+            journalChannel.write(bytes);
+        }
+        journalChannel.force(false);
+        long length = journalChannel.size();
+        Metrics.count("storage.bytesWritten", written);
+        event.commit(journal.getPath(), "append", taskCount, written);
+
+        boolean isCompactionIdle = compaction == null || compaction.isDone();
+        if (length >= compactThreshold && isCompactionIdle && !sealed.exists()) {
+            closeJournal();
+            Files.move(journal.toPath(), sealed.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            compaction = compactor.submit(this::compact);
+        }
+    }
+
+    /**
+     * Folds the sealed journal into a new snapshot. Runs on the compactor thread
+     * and only touches files the command thread no longer writes to.
+     * The sealed journal is deleted before the new snapshot is moved into place,
+     * so a crash at any point leaves a state {@link #recoverCompaction()} can resolve.
+     * A failure is kept for {@link #awaitCompaction()} to report.
+     */
+    private void compact() {
+        try {
+            foldSealed();
+        } catch (IOException e) {
+            compactionFailure = e;
+        }
+    }
+
+    private void foldSealed() throws IOException {
+        StorageSaveEvent event = new StorageSaveEvent();
+        event.begin();
+        ArrayList<Task> list = new ArrayList<>();
+        super.loadInto(list);
+        replay(sealed, list);
+        long bytes = writeSnapshot(compacted, list);
+        Files.delete(sealed.toPath());
+        replaceAtomically(compacted, file);
+        event.commit(file.getPath(), "compact", list.size(), bytes);
+    }
+
+    /**
+     * Completes or rolls back a compaction that was interrupted by a crash.
+     * A compacted snapshot without a sealed journal is complete and is moved into place;
+     * one that still has its sealed journal next to it may be partial and is discarded.
+     *
+     * @throws IOException if the leftover files cannot be moved or deleted.
+     */
+    private void recoverCompaction() throws IOException {
+        if (!compacted.exists()) {
+            return;
+        }
+        if (sealed.exists()) {
+            Files.delete(compacted.toPath());
+        } else {
+            replaceAtomically(compacted, file);
+        }
+    }
+
+    /**
+     * Blocks until a running compaction finishes, so that it cannot overwrite a newer snapshot,
+     * and reports a compaction that failed since the last call.
+     *
+     * @throws IOException if the compaction failed or the wait was interrupted.
+     */
+    private void awaitCompaction() throws IOException {
+        if (compaction != null) {
+            try {
+                compaction.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while waiting for journal compaction", e);
+            } catch (ExecutionException e) {
+                compaction = null;
+                throw new IOException("journal compaction crashed", e.getCause());
+            }
+            compaction = null;
+        }
+        IOException failure = compactionFailure;
+        if (failure != null) {
+            compactionFailure = null;
+            throw new IOException("could not compact journal: " + failure.getMessage(), failure);
+        }
+    }
+
+    private void closeJournal() throws IOException {
+        if (journalChannel != null) {
+            journalChannel.close();
+            journalChannel = null;
+        }
+    }
+
+    /**
+     * Applies every record of a journal file to the given list.
+     * Malformed records and records referring to missing tasks are skipped,
+     * mirroring how {@link #load()} skips malformed snapshot lines. Bytes after
+     * the last newline are a record torn by a crash; they are dropped and cut
+     * off the file, so the next record does not run on from them.
+     *
+     * @param source the journal file, in UTF-8; ignored if it does not exist.
+     * @param list the list to apply the records to.
+     * @throws IOException if an I/O error occurs while reading or truncating.
+     */
+    private void replay(File source, List<Task> list) throws IOException {
+        if (!source.exists()) {
+            return;
+        }
+        long complete = 0;
+        long offset = 0;
+        try (InputStream in = new FileInputStream(source)) {
+            ByteArrayOutputStream record = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                int from = 0;
+                for (int i = 0; i < n; i++) {
+                    if (buf[i] == '\n') {
+                        record.write(buf, from, i - from);
+                        applyRecord(record.toString(StandardCharsets.UTF_8), list);
+                        record.reset();
+                        from = i + 1;
+                        complete = offset + from;
+                    }
+                }
+                record.write(buf, from, n - from);
+                offset += n;
+            }
+        }
+        if (complete < offset) {
+            try (FileChannel ch = FileChannel.open(source.toPath(), StandardOpenOption.WRITE)) {
+                ch.truncate(complete);
+                ch.force(false);
+            }
+        }
+    }
+
+    private void applyRecord(String record, List<Task> list) {
+        if (record.length() < 2 || record.charAt(1) != '|') {
+            return;
+        }
+        String body = record.substring(2);
+        try {
+            switch (record.charAt(0)) {
+            case 'A': {
+                Task t = parseLine(body);
+                if (t != null) {
+                    list.add(t);
+                }
+                break;
+            }
+            case 'S': {
+                String[] p = body.split("\\|");
+                int idx = Integer.parseInt(p[0]);
+                if (idx >= 0 && idx < list.size() && p.length > 1) {
+                    Task t = list.get(idx);
+                    if ("1".equals(p[1])) {
+                        t.setDone();
+                    } else {
+                        t.setUndone();
+                    }
+                    list.set(idx, t); // a compact list stores the flag in its columns
+                }
+                break;
+            }
+            case 'X': {
+                int idx = Integer.parseInt(body);
+                if (idx >= 0 && idx < list.size()) {
+                    list.remove(idx);
+                }
+                break;
+            }
+            default:
+                break;
+            }
+        } catch (IllegalArgumentException ignore) {
+            // malformed record, skip it
+        }
+    }
+}
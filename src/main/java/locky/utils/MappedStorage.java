@@ -0,0 +1,411 @@
+package locky.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+import locky.tasks.Task;
+
+/**
+ * Represents a text {@code Locky.utils.Storage} whose startup path memory-maps
+ * the file and only records where each task line starts and ends. A
+ * {@code Locky.tasks.Task} is decoded the first time it is accessed, so
+ * startup allocates two {@code int}s per task instead of a full object graph.
+ *
+ * <p>Lines that {@link Storage#load()} would skip (unknown type or too few
+ * fields) are left out of the index as well, so task numbering is identical,
+ * and dates are checked on the mapped bytes while indexing, so a line
+ * {@code load()} would reject fails the load here too. The checksum trailer is
+ * verified over the mapped bytes.</p>
+ *
+ * <p>Before the first save, the lines not decoded yet are copied to the heap and
+ * the mapping is dropped, so that it does not pin the file being replaced. This
+ * happens in {@link #releaseLoaded()}, on the thread that owns the list; an
+ * {@code Locky.utils.AsyncStorage} calls it before handing a change to its writer.
+ * The JDK only unmaps a dropped mapping once it is garbage collected, and Windows
+ * refuses to replace or move a file while it is mapped, so there the file is read
+ * into a heap buffer through its channel instead. Tasks are still decoded lazily.</p>
+ */
+public class MappedStorage extends Storage {
+    private static final boolean CAN_REPLACE_MAPPED_FILE =
+            !System.getProperty("os.name", "").startsWith("Windows");
+
+    private final boolean isMappingAllowed;
+    private MappedTaskList mapped;
+
+    public MappedStorage(String path) {
+        this(path, CAN_REPLACE_MAPPED_FILE);
+    }
+
+    /**
+     * Creates a storage that maps the file only if {@code isMappingAllowed}.
+     *
+     * @param path path to the storage file.
+     * @param isMappingAllowed whether the file may be mapped, or must be read into the heap.
+     */
+    MappedStorage(String path, boolean isMappingAllowed) {
+        super(path);
+        this.isMappingAllowed = isMappingAllowed;
+    }
+
+    /**
+     * Maps the storage file, or reads it into the heap where mapping would pin it,
+     * and returns a list that decodes tasks on first access.
+     * Falls back to {@link #load()} for missing, binary or very large files.
+     *
+     * @return a mutable list of the stored tasks.
+     * @throws IOException if the file cannot be mapped or fails its checksum.
+     */
+    @Override
+    public List<Task> loadLazily() throws IOException {
+        if (!file.isFile() || file.length() > Integer.MAX_VALUE || BinaryStorage.isBinaryFile(file)) {
+            return load();
+        }
+        ByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buf = isMappingAllowed ? ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()) : readFully(ch);
+        }
+        MappedTaskList list = new MappedTaskList(buf);
+        if (!list.isChecksumValid) {
+            quarantineCorruptFile();
+        }
+        mapped = list;
+        return list;
+    }
+
+    /**
+     * Releases the mapping of the last loaded list, then saves as usual.
+     *
+     * @param list the list of tasks to be written to storage.
+     * @throws IOException if an I/O error occurs while writing the file.
+     */
+    @Override
+    public void save(List<Task> list) throws IOException {
+        releaseLoaded();
+        super.save(list);
+    }
+
+    /**
+     * Copies the lines of the last loaded list that are not decoded yet to the
+     * heap and drops the mapping. Must run on the thread that uses that list.
+     */
+    @Override
+    protected void releaseLoaded() {
+        if (mapped != null) {
+            mapped.copyOut();
+            mapped = null;
+        }
+    }
+
+    boolean isMapped() {
+        return mapped != null;
+    }
+
+    private static ByteBuffer readFully(FileChannel ch) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate((int) ch.size());
+        int read;
+        do {
+            read = ch.read(buf);
+        } while (read >= 0 && buf.hasRemaining());
+        return buf.flip();
+    }
+
+    /**
+     * Represents a list of tasks backed by line offsets into a mapped file.
+     * Tasks added later are kept in memory; removing shifts the offset arrays
+     * just like an {@code ArrayList} would. The offsets point into the mapped
+     * file until {@link #copyOut()} moves them to a heap buffer; a file read
+     * into the heap to begin with stays where it is.
+     */
+    private class MappedTaskList extends AbstractList<Task> implements RandomAccess {
+        private static final byte[] TRAILER = "#crc32|".getBytes(StandardCharsets.US_ASCII);
+
+        private ByteBuffer buf;
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private Task[] decoded = new Task[16];
+        private int size;
+        private boolean isChecksumValid = true;
+
+        MappedTaskList(ByteBuffer buf) {
+            this.buf = buf;
+            index();
+        }
+
+        /**
+         * Scans the mapped bytes once for line breaks, recording valid task lines
+         * and checking the checksum trailer if there is one.
+         */
+        private void index() {
+            int limit = buf.limit();
+            int lineStart = 0;
+            int trailerStart = -1;
+            boolean hasDataAfterTrailer = false;
+            while (lineStart < limit) {
+                int lineEnd = lineStart;
+                while (lineEnd < limit && buf.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int contentEnd = lineEnd > lineStart && buf.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                if (startsWithTrailer(lineStart, contentEnd)) {
+                    trailerStart = lineStart;
+                } else {
+                    hasDataAfterTrailer |= trailerStart >= 0;
+                    if (isLoadable(lineStart, contentEnd)) {
+                        checkDates(lineStart, contentEnd);
+                        append(lineStart, contentEnd, null);
+                    }
+                }
+                lineStart = lineEnd + 1;
+            }
+            if (trailerStart >= 0) {
+                CRC32 crc = new CRC32();
+                crc.update(buf.duplicate().position(0).limit(trailerStart));
+                String expected = String.format("#crc32|%08x", crc.getValue());
+                isChecksumValid = !hasDataAfterTrailer && expected.equals(lineAt(trailerStart, limit).trim());
+            }
+        }
+
+        private boolean startsWithTrailer(int from, int to) {
+            if (to - from < TRAILER.length) {
+                return false;
+            }
+            for (int i = 0; i < TRAILER.length; i++) {
+                if (buf.get(from + i) != TRAILER[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Mirrors the cases in which {@code parseLine} returns null, without decoding.
+         * Fields are counted the way {@code String.split} does, ignoring trailing empty ones.
+         */
+        private boolean isLoadable(int from, int to) {
+            int end = to;
+            while (end > from && buf.get(end - 1) == '|') {
+                end--;
+            }
+            int fields = 1;
+            for (int i = from; i < end; i++) {
+                if (buf.get(i) == '|') {
+                    fields++;
+                }
+            }
+            if (fields < 3 || buf.get(from + 1) != '|') {
+                return false;
+            }
+            switch (buf.get(from)) {
+            case 'T':
+                return true;
+            case 'D':
+                return fields >= 4;
+            case 'E':
+                return fields >= 5;
+            default:
+                return false;
+            }
+        }
+
+        /**
+         * Checks the date fields of deadline and event lines so that a bad date
+         * throws here, as it would from {@code load()}, instead of on first access.
+         * The dates are read straight from the mapped bytes, so nothing is decoded;
+         * only a date in a layout {@code Locky.utils.DateTimeFormat} reads through
+         * its formatters has the whole line parsed, which also reports a bad one.
+         */
+        private void checkDates(int from, int to) {
+            byte type = buf.get(from);
+            if (type != 'D' && type != 'E') {
+                return;
+            }
+            int lastDateField = type == 'D' ? 3 : 4;
+            int field = 0;
+            int fieldStart = from;
+            for (int i = from; i <= to && field <= lastDateField; i++) {
+                if (i < to && buf.get(i) != '|') {
+                    continue;
+                }
+                if (field >= 3 && !DateTimeFormat.isFastStored(new AsciiView(buf, fieldStart, i))) {
+                    parseLine(lineAt(from, to));
+                    return;
+                }
+                field++;
+                fieldStart = i + 1;
+            }
+        }
+
+        /**
+         * Copies the lines that have not been decoded into a heap buffer and drops
+         * the mapped buffer. The JDK has no supported way to unmap, so the mapping
+         * itself goes away once it is garbage collected.
+         */
+        void copyOut() {
+            if (!(buf instanceof MappedByteBuffer)) {
+                return;
+            }
+            int total = 0;
+            for (int i = 0; i < size; i++) {
+                if (decoded[i] == null && starts[i] >= 0) {
+                    total += ends[i] - starts[i];
+                }
+            }
+            byte[] heap = new byte[total];
+            int position = 0;
+            for (int i = 0; i < size; i++) {
+                if (decoded[i] == null && starts[i] >= 0) {
+                    int length = ends[i] - starts[i];
+                    buf.get(starts[i], heap, position, length);
+                    starts[i] = position;
+                    ends[i] = position + length;
+                    position += length;
+                }
+            }
+            buf = ByteBuffer.wrap(heap);
+        }
+
+        private String lineAt(int from, int to) {
+            byte[] bytes = new byte[to - from];
+            buf.get(from, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void append(int start, int end, Task task) {
+            if (size == starts.length) {
+                int capacity = size * 2;
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                decoded = Arrays.copyOf(decoded, capacity);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            decoded[size] = task;
+            size++;
+        }
+
+        @Override
+        public Task get(int index) {
+            Objects.checkIndex(index, size);
+            Task t = decoded[index];
+            if (t == null) {
+                t = parseLine(lineAt(starts[index], ends[index]));
+                decoded[index] = t;
+            }
+            return t;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Task set(int index, Task task) {
+            Task old = get(index);
+            decoded[index] = task;
+            return old;
+        }
+
+        @Override
+        public void add(int index, Task task) {
+            Objects.checkIndex(index, size + 1);
+            append(-1, -1, null);
+            System.arraycopy(starts, index, starts, index + 1, size - 1 - index);
+            System.arraycopy(ends, index, ends, index + 1, size - 1 - index);
+            System.arraycopy(decoded, index, decoded, index + 1, size - 1 - index);
+            starts[index] = -1;
+            ends[index] = -1;
+            decoded[index] = task;
+            modCount++;
+        }
+
+        /**
+         * Removes matching tasks in one pass, testing each task once, in order.
+         */
+        @Override
+        public boolean removeIf(Predicate<? super Task> filter) {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (filter.test(get(i))) {
+                    continue;
+                }
+                starts[count] = starts[i];
+                ends[count] = ends[i];
+                decoded[count] = decoded[i];
+                count++;
+            }
+            if (count == size) {
+                return false;
+            }
+            Arrays.fill(decoded, count, size, null);
+            size = count;
+            modCount++;
+            return true;
+        }
+
+        @Override
+        public Task remove(int index) {
+            Task old = get(index);
+            int moved = size - 1 - index;
+            System.arraycopy(starts, index + 1, starts, index, moved);
+            System.arraycopy(ends, index + 1, ends, index, moved);
+            System.arraycopy(decoded, index + 1, decoded, index, moved);
+            size--;
+            decoded[size] = null;
+            modCount++;
+            return old;
+        }
+    }
+
+    /**
+     * Represents a range of a byte buffer as characters, one per byte, without
+     * copying it. Bytes outside ASCII read as {@code '\uFFFF'}, so they never
+     * match the ASCII layouts they are checked against.
+     */
+    private static final class AsciiView implements CharSequence {
+        private final ByteBuffer buf;
+        private final int from;
+        private final int to;
+
+        AsciiView(ByteBuffer buf, int from, int to) {
+            this.buf = buf;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public int length() {
+            return to - from;
+        }
+
+        @Override
+        public char charAt(int index) {
+            Objects.checkIndex(index, length());
+            byte b = buf.get(from + index);
+            return b >= 0 ? (char) b : '\uFFFF';
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            Objects.checkFromToIndex(start, end, length());
+            return new AsciiView(buf, from + start, from + end);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(length());
+            return sb.append(this).toString();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package locky.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import locky.tasks.Task;
+
+/**
+ * Represents a {@code Locky.utils.Storage} that times every load, save and
+ * flush of the storage it wraps and records it in {@link Metrics} under
+ * {@code storage.<operation>}. Failed operations are timed as well and also
+ * counted under {@code storage.errors}.
+ */
+public class MeteredStorage extends Storage {
+    private final Storage delegate;
+
+    /**
+     * Creates a metered wrapper around {@code delegate}.
+     *
+     * @param delegate the storage that performs the actual reads and writes.
+     */
+    public MeteredStorage(Storage delegate) {
+        super(delegate.file.getPath());
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ArrayList<Task> load() throws IOException {
+        long start = System.nanoTime();
+        try {
+            return delegate.load();
+        } catch (IOException | RuntimeException e) {
+            Metrics.count("storage.errors", 1);
+            throw e;
+        } finally {
+            Metrics.recordSince("storage.load", start);
+        }
+    }
+
+    @Override
+    public List<Task> loadLazily() throws IOException {
+        long start = System.nanoTime();
+        try {
+            return delegate.loadLazily();
+        } catch (IOException | RuntimeException e) {
+            Metrics.count("storage.errors", 1);
+            throw e;
+        } finally {
+            Metrics.recordSince("storage.load", start);
+        }
+    }
+
+    @Override
+    public void save(List<Task> list) throws IOException {
+        long start = System.nanoTime();
+        try {
+            delegate.save(list);
+        } catch (IOException | RuntimeException e) {
+            Metrics.count("storage.errors", 1);
+            throw e;
+        } finally {
+            Metrics.recordSince("storage.save", start);
+        }
+    }
+
+    @Override
+    public void saveAdded(List<Task> list, Task added) throws IOException {
+        long start = System.nanoTime();
+        try {
+            delegate.saveAdded(list, added);
+        } catch (IOException | RuntimeException e) {
+            Metrics.count("storage.errors", 1);
+            throw e;
+        } finally {
+            Metrics.recordSince("storage.saveAdded", start);
+        }
+    }
+
+    @Override
+    public void saveUpdated(List<Task> list, int index) throws IOException {
+        long start = System.nanoTime();
+        try {
+            delegate.saveUpdated(list, index);
+        } catch (IOException | RuntimeException e) {
+            Metrics.count("storage.errors", 1);
+            throw e;
+        } finally {
+            Metrics.recordSince("storage.saveUpdated", start);
+        }
+    }
+
+    @Override
+    public void saveDeleted(List<Task> list, int index) throws IOException {
+        long start = System.nanoTime();
+        try {
+            delegate.saveDeleted(list, index);
+        } catch (IOException | RuntimeException e) {
+            Metrics.count("storage.errors", 1);
+            throw e;
+        } finally {
+            Metrics.recordSince("storage.saveDeleted", start);
+        }
+    }
+
+    @Override
+    protected boolean hasIncrementalSaves() {
+        return delegate.hasIncrementalSaves();
+    }
+
+    @Override
+    protected void releaseLoaded() {
+        delegate.releaseLoaded();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        long start = System.nanoTime();
+        try {
+            delegate.flush();
+        } catch (IOException | RuntimeException e) {
+            Metrics.count("storage.errors", 1);
+            throw e;
+        } finally {
+            Metrics.recordSince("storage.flush", start);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package locky.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how long Locky's operations take and how much they write.
+ * Timers keep a {@link LatencyHistogram} and counters a {@code LongAdder},
+ * each created on first use of its name. Recording never takes a lock, so it
+ * may be called from the command thread, the UI and background writers alike.
+ *
+ * <p>Names are dotted, e.g. {@code command.TodoCommand} or {@code storage.save}.
+ * Throughput is measured from the time this class was loaded.</p>
+ */
+public final class Metrics {
+    private static final Map<String, LatencyHistogram> TIMERS = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static volatile long startedNanos = System.nanoTime();
+
+    private Metrics() {
+    }
+
+    /**
+     * Records one duration under the given timer.
+     *
+     * @param name the timer name.
+     * @param nanos the duration in nanoseconds.
+     */
+    public static void recordNanos(String name, long nanos) {
+        TIMERS.computeIfAbsent(name, n -> new LatencyHistogram()).record(nanos);
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos} under the given timer.
+     *
+     * @param name the timer name.
+     * @param startNanos a value of {@link System#nanoTime()} taken when the operation began.
+     */
+    public static void recordSince(String name, long startNanos) {
+        recordNanos(name, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Adds {@code delta} to the given counter.
+     *
+     * @param name the counter name.
+     * @param delta the amount to add.
+     */
+    public static void count(String name, long delta) {
+        COUNTERS.computeIfAbsent(name, n -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * Returns a table of every timer, with its count, p50, p99, max and rate
+     * per second, followed by every counter. Rows are sorted by name.
+     *
+     * @return the formatted report.
+     */
+    public static String report() {
+        if (TIMERS.isEmpty() && COUNTERS.isEmpty()) {
+            return "No metrics recorded yet.\n";
+        }
+        double seconds = Math.max(System.nanoTime() - startedNanos, 1) / 1e9;
+        StringBuilder sb = new StringBuilder();
+        if (!TIMERS.isEmpty()) {
+            sb.append(String.format("%-28s %8s %9s %9s %9s %9s%n", "timer", "count", "p50", "p99", "max", "per sec"));
+            for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(TIMERS).entrySet()) {
+                LatencyHistogram h = e.getValue();
+                long count = h.getCount();
+                sb.append(String.format("%-28s %8d %9s %9s %9s %9.2f%n", e.getKey(), count,
+                        formatNanos(h.getPercentile(50)), formatNanos(h.getPercentile(99)),
+                        formatNanos(h.getMax()), count / seconds));
+            }
+        }
+        if (!COUNTERS.isEmpty()) {
+            sb.append(String.format("%-28s %8s %9s%n", "counter", "total", "per sec"));
+            for (Map.Entry<String, LongAdder> e : new TreeMap<>(COUNTERS).entrySet()) {
+                long total = e.getValue().sum();
+                sb.append(String.format("%-28s %8d %9.2f%n", e.getKey(), total, total / seconds));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes {@link #report()} to a plain-text file, headed by the time it was taken.
+     *
+     * @param path the file to write; replaced if it exists.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void exportTo(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(path, "# Locky metrics at " + LocalDateTime.now() + "\n" + report(),
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Drops every timer and counter and restarts the throughput clock.
+     */
+    static void reset() {
+        TIMERS.clear();
+        COUNTERS.clear();
+        startedNanos = System.nanoTime();
+    }
+
+    static String formatNanos(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + "ns";
+        } else if (nanos < 1_000_000) {
+            return String.format("%.1fus", nanos / 1e3);
+        } else if (nanos < 1_000_000_000) {
+            return String.format("%.1fms", nanos / 1e6);
+        }
+        return String.format("%.2fs", nanos / 1e9);
+    }
+}
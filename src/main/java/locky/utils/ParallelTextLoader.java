@@ -0,0 +1,225 @@
+package locky.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.CRC32;
+
+import locky.tasks.Task;
+
+/**
+ * Loads a text storage file on a {@code ForkJoinPool}. The file is read into
+ * one byte array, which is cut into ranges that end on line breaks; each range
+ * is parsed into its own list of tasks, and the lists are appended in file order.
+ * Reading rather than mapping the file leaves nothing open that could stop a
+ * later save from replacing it.
+ *
+ * <p>Every line goes through {@code parseLine}, so lines it rejects are skipped
+ * exactly as by a sequential load. If it throws, the exception of the earliest
+ * such line is rethrown, after the tasks before it have been appended. Lines are
+ * split at {@code '\n'} with a trailing {@code '\r'} removed, as in
+ * {@link MappedStorage}. The checksum trailer is verified over the same line
+ * contents as a sequential load does.</p>
+ *
+ * <p>The time of each phase is recorded in {@link Metrics} under
+ * {@code load.parallel.<phase>}.</p>
+ */
+final class ParallelTextLoader {
+    /** Files smaller than this load faster on one thread. */
+    static final long MIN_PARALLEL_BYTES = 1 << 20;
+
+    private static final byte[] TRAILER = "#crc32|".getBytes(StandardCharsets.US_ASCII);
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final Storage storage;
+    private final ForkJoinPool pool;
+
+    ParallelTextLoader(Storage storage, ForkJoinPool pool) {
+        this.storage = storage;
+        this.pool = pool;
+    }
+
+    /**
+     * Holds the tasks parsed from one byte range, and the exception that stopped
+     * parsing it, if any.
+     */
+    private record Chunk(List<Task> tasks, RuntimeException error) {}
+
+    /**
+     * Appends the tasks in {@code file} to {@code list}.
+     *
+     * @param file a text storage file of at most {@code Integer.MAX_VALUE} bytes.
+     * @param list the list to append the loaded tasks to.
+     * @return false if the file has a checksum trailer that does not match.
+     * @throws IOException if the file cannot be read.
+     */
+    boolean loadInto(File file, List<Task> list) throws IOException {
+        long started = System.nanoTime();
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        int[] bounds = split(buf, pool.getParallelism() * CHUNKS_PER_THREAD);
+        long split = System.nanoTime();
+        Metrics.recordNanos("load.parallel.read", split - started);
+
+        Chunk[] chunks = new Chunk[bounds.length - 1];
+        pool.invoke(new ParseRange(bytes, bounds, chunks, 0, chunks.length));
+        long parsed = System.nanoTime();
+        Metrics.recordNanos("load.parallel.parse", parsed - split);
+
+        for (Chunk chunk : chunks) {
+            list.addAll(chunk.tasks());
+            if (chunk.error() != null) {
+                throw chunk.error();
+            }
+        }
+        long stitched = System.nanoTime();
+        Metrics.recordNanos("load.parallel.stitch", stitched - parsed);
+
+        boolean isChecksumValid = isChecksumValid(buf);
+        Metrics.recordSince("load.parallel.checksum", stitched);
+        return isChecksumValid;
+    }
+
+    /**
+     * Returns {@code count + 1} ascending offsets that start at 0, end at the
+     * buffer's limit, and otherwise each follow a {@code '\n'}. Some ranges may be empty.
+     */
+    static int[] split(ByteBuffer buf, int count) {
+        int limit = buf.limit();
+        int[] bounds = new int[count + 1];
+        for (int k = 1; k < count; k++) {
+            int at = Math.max((int) ((long) limit * k / count), bounds[k - 1]);
+            while (at > 0 && at < limit && buf.get(at - 1) != '\n') {
+                at++;
+            }
+            bounds[k] = at;
+        }
+        bounds[count] = limit;
+        return bounds;
+    }
+
+    /**
+     * Parses a run of byte ranges, splitting it in half until one range is left.
+     */
+    @SuppressWarnings("serial") // only ever run in this process, never serialized
+    private final class ParseRange extends RecursiveAction {
+        private final byte[] bytes;
+        private final int[] bounds;
+        private final Chunk[] chunks;
+        private final int from;
+        private final int to;
+
+        ParseRange(byte[] bytes, int[] bounds, Chunk[] chunks, int from, int to) {
+            this.bytes = bytes;
+            this.bounds = bounds;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ParseRange(bytes, bounds, chunks, from, mid),
+                        new ParseRange(bytes, bounds, chunks, mid, to));
+            } else if (to > from) {
+                chunks[from] = parse(bytes, bounds[from], bounds[from + 1]);
+            }
+        }
+    }
+
+    /**
+     * Parses the lines in {@code [from, to)} of the file's bytes.
+     */
+    private Chunk parse(byte[] bytes, int from, int to) {
+        List<Task> tasks = new ArrayList<>();
+        int lineStart = from;
+        while (lineStart < to) {
+            int lineEnd = lineStart;
+            while (lineEnd < to && bytes[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd > lineStart && bytes[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+            if (!startsWithTrailer(bytes, lineStart, contentEnd)) {
+                try {
+                    Task t = storage.parseLine(new String(bytes, lineStart, contentEnd - lineStart,
+                            StandardCharsets.UTF_8));
+                    if (t != null) {
+                        tasks.add(t);
+                    }
+                } catch (RuntimeException e) {
+                    return new Chunk(tasks, e);
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return new Chunk(tasks, null);
+    }
+
+    /**
+     * Checks the trailer the way a sequential load does: the CRC covers each
+     * line before the trailer, without its line break, followed by {@code '\n'}.
+     */
+    private static boolean isChecksumValid(ByteBuffer buf) {
+        ByteBuffer view = buf.duplicate();
+        CRC32 crc = new CRC32();
+        String trailer = null;
+        long checkedValue = 0;
+        boolean hasDataAfterTrailer = false;
+        int limit = buf.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineEnd(buf, lineStart, limit);
+            int contentEnd = contentEnd(buf, lineStart, lineEnd);
+            if (startsWithTrailer(buf, lineStart, contentEnd)) {
+                byte[] text = new byte[contentEnd - lineStart];
+                buf.get(lineStart, text);
+                trailer = new String(text, StandardCharsets.UTF_8);
+                checkedValue = crc.getValue();
+            } else {
+                hasDataAfterTrailer = trailer != null;
+                crc.update(view.clear().position(lineStart).limit(contentEnd));
+                crc.update('\n');
+            }
+            lineStart = lineEnd + 1;
+        }
+        return trailer == null || (!hasDataAfterTrailer && trailer.equals(Storage.checksumLine(checkedValue)));
+    }
+
+    private static int lineEnd(ByteBuffer buf, int from, int limit) {
+        int end = from;
+        while (end < limit && buf.get(end) != '\n') {
+            end++;
+        }
+        return end;
+    }
+
+    private static int contentEnd(ByteBuffer buf, int lineStart, int lineEnd) {
+        return lineEnd > lineStart && buf.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+    }
+
+    private static boolean startsWithTrailer(byte[] bytes, int from, int to) {
+        return to - from >= TRAILER.length
+                && Arrays.equals(bytes, from, from + TRAILER.length, TRAILER, 0, TRAILER.length);
+    }
+
+    private static boolean startsWithTrailer(ByteBuffer buf, int from, int to) {
+        if (to - from < TRAILER.length) {
+            return false;
+        }
+        for (int i = 0; i < TRAILER.length; i++) {
+            if (buf.get(from + i) != TRAILER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
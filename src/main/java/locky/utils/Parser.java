@@ -2,20 +2,35 @@ package locky.utils;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import locky.commands.BatchCommand;
+import locky.commands.BeginCommand;
+import locky.commands.BetweenCommand;
 import locky.commands.Command;
+import locky.commands.CommitCommand;
 import locky.commands.DeadlineCommand;
 import locky.commands.DeleteCommand;
+import locky.commands.DueCommand;
 import locky.commands.EventCommand;
 import locky.commands.FindCommand;
 import locky.commands.ListCommand;
 import locky.commands.MarkCommand;
+import locky.commands.NextCommand;
+import locky.commands.OverlapCommand;
+import locky.commands.RollbackCommand;
+import locky.commands.StatsCommand;
 import locky.commands.TodoCommand;
 import locky.commands.UnmarkCommand;
 import locky.error.LockyException;
+import locky.tasks.TaskList;
 
 /**
  * Parses user input lines into structured commands and arguments.
@@ -29,41 +44,87 @@ public final class Parser {
     // regex for command arguments
     private static final Pattern DEADLINE_RE = Pattern.compile("^(.+?)\\s*/by\\s+(.+)$");
     private static final Pattern EVENT_RE = Pattern.compile("^(.+?)\\s*/from\\s+(.+?)\\s*/to\\s+(.+)$");
+    private static final Pattern WINDOW_RE = Pattern.compile("^/from\\s+(.+?)\\s*/to\\s+(.+)$");
+    private static final Pattern DUE_RE = Pattern.compile("^before\\s+(.+)$");
+    private static final Pattern BETWEEN_RE = Pattern.compile("^(.+?)\\s+and\\s+(.+)$");
+    private static final Pattern LIST_RE = Pattern.compile("^(?:page\\s+(\\d+))?\\s*(?:--limit\\s+(\\d+))?$");
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    private static final String FIND_PREFIX = "find:";
+    private static final String UNKNOWN_COMMAND =
+            "Unknown command. Try: list | todo | deadline | event | mark | unmark | delete | find"
+                    + " | overlap | due | between | next | begin | commit | rollback | batch | stats";
+
+    // commands without arguments are stateless and shared
+    private static final Command LIST = new ListCommand();
+    private static final Command BEGIN = new BeginCommand();
+    private static final Command COMMIT = new CommitCommand();
+    private static final Command ROLLBACK = new RollbackCommand();
+
+    // dispatch table indexed by the command word's lower-case first letter
+    private static final Entry[][] DISPATCH = buildDispatch(
+            new Entry("list", args -> args.isEmpty() ? LIST : new ListCommand(args)),
+            new Entry("todo", TodoCommand::new),
+            new Entry("deadline", DeadlineCommand::new),
+            new Entry("event", EventCommand::new),
+            new Entry("mark", MarkCommand::new),
+            new Entry("unmark", UnmarkCommand::new),
+            new Entry("delete", DeleteCommand::new),
+            new Entry("find", FindCommand::new),
+            new Entry("overlap", OverlapCommand::new),
+            new Entry("due", DueCommand::new),
+            new Entry("between", BetweenCommand::new),
+            new Entry("next", NextCommand::new),
+            new Entry("begin", args -> BEGIN),
+            new Entry("commit", args -> COMMIT),
+            new Entry("rollback", args -> ROLLBACK),
+            new Entry("batch", BatchCommand::new),
+            new Entry("stats", StatsCommand::new));
+
+    private record Entry(String name, Function<String, Command> factory) {}
+
+    private static Entry[][] buildDispatch(Entry... entries) {
+        Entry[][] table = new Entry[26][0];
+        for (Entry e : entries) {
+            int bucket = e.name().charAt(0) - 'a';
+            Entry[] old = table[bucket];
+            Entry[] grown = Arrays.copyOf(old, old.length + 1);
+            grown[old.length] = e;
+            table[bucket] = grown;
+        }
+        return table;
+    }
 
     /**
      * Parses a raw line into a specific Command.
+     * The line is scanned once in place: the command word is matched
+     * case-insensitively against the dispatch table without building
+     * intermediate strings, so the only allocations are the argument
+     * string and the Command itself.
      *
      * @param raw the raw user input line.
      * @return a Command ready to be executed.
      * @throws LockyException if the input is invalid or unknown.
      */
     public static Command parse(String raw) throws LockyException {
-        ParsedCommand pc = parseCommandLine(raw);
-        String cmd = pc.command();
-        String args = pc.args();
-
-        switch (cmd) {
-        case "list":
-            return new ListCommand();
-        case "todo":
-            return new TodoCommand(args);
-        case "deadline":
-            return new DeadlineCommand(args);
-        case "event":
-            return new EventCommand(args);
-        case "mark":
-            return new MarkCommand(args);
-        case "unmark":
-            return new UnmarkCommand(args);
-        case "delete":
-            return new DeleteCommand(args);
-        case "find":
-            return new FindCommand(args);
-        default:
-            throw new LockyException(
-                    "Unknown command. Try: list | todo | deadline | event | mark | unmark | delete | find"
-            );
+        Objects.requireNonNull(raw, "raw");
+        int end = trimmedEnd(raw);
+        int start = trimmedStart(raw, end);
+        if (start == end) {
+            throw new LockyException("Say something? (try: todo … / deadline … / event …)");
         }
+        int wordEnd = wordEnd(raw, start, end);
+        int length = wordEnd - start;
+
+        char first = Character.toLowerCase(raw.charAt(start));
+        if (first >= 'a' && first <= 'z') {
+            for (Entry e : DISPATCH[first - 'a']) {
+                if (e.name().length() == length && raw.regionMatches(true, start, e.name(), 0, length)) {
+                    return e.factory().apply(args(raw, wordEnd, end));
+                }
+            }
+        }
+        throw new LockyException(UNKNOWN_COMMAND);
     }
 
     /**
@@ -75,15 +136,90 @@ public final class Parser {
      * @throws LockyException if the input is empty or only whitespace.
      */
     public static ParsedCommand parseCommandLine(String raw) throws LockyException {
-        String s = Objects.requireNonNull(raw, "raw").trim();
-        if (s.isEmpty()) {
+        Objects.requireNonNull(raw, "raw");
+        int end = trimmedEnd(raw);
+        int start = trimmedStart(raw, end);
+        if (start == end) {
             throw new LockyException("Say something? (try: todo … / deadline … / event …)");
         }
+        int wordEnd = wordEnd(raw, start, end);
+        String cmd = raw.substring(start, wordEnd).toLowerCase();
+        return new ParsedCommand(cmd, args(raw, wordEnd, end));
+    }
 
-        String[] split = s.split("\\s+", 2);
-        String cmd = split[0].toLowerCase();
-        String args = split.length > 1 ? split[1].trim() : "";
-        return new ParsedCommand(cmd, args);
+    // the scanning helpers below mirror String.trim() and the regex class \s
+
+    private static int trimmedEnd(String s) {
+        int end = s.length();
+        while (end > 0 && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static int trimmedStart(String s, int end) {
+        int start = 0;
+        while (start < end && s.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int wordEnd(String s, int start, int end) {
+        int i = start;
+        while (i < end && !isRegexSpace(s.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String args(String s, int wordEnd, int end) {
+        int i = wordEnd;
+        while (i < end && s.charAt(i) <= ' ') {
+            i++;
+        }
+        return i == end ? "" : s.substring(i, end);
+    }
+
+    /**
+     * Finds the first {@code marker} at or after {@code from} that is followed by
+     * whitespace and at least one more character, which is where the lazy
+     * {@code DEADLINE_RE} and {@code EVENT_RE} groups would split.
+     * Returns -1 if the first candidate does not qualify, so the caller falls
+     * back to the regex and its error messages.
+     */
+    private static int findMarker(String s, String marker, int from) {
+        int i = s.indexOf(marker, from);
+        while (i >= 0) {
+            int after = i + marker.length();
+            if (after < s.length() && isRegexSpace(s.charAt(after))) {
+                return after + 1 < s.length() ? i : -1;
+            }
+            i = s.indexOf(marker, i + 1);
+        }
+        return -1;
+    }
+
+    private static int skipRegexSpace(String s, int i) {
+        while (i < s.length() && isRegexSpace(s.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    // '.' in the argument patterns does not match these, so such input goes through the regex
+    private static boolean hasLineTerminator(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isRegexSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 
     /**
@@ -101,23 +237,30 @@ public final class Parser {
             throw new LockyException(
                     "Deadline needs \"description /by when\". Try: \"deadline CS2100 lab /by 2019-12-02 1800\"");
         }
-        Matcher m = DEADLINE_RE.matcher(args);
+        String desc;
+        String by;
+        int marker = findMarker(args, "/by", 1);
+        if (marker > 0 && !hasLineTerminator(args)) {
+            desc = args.substring(0, marker).trim();
+            by = args.substring(marker + 3).trim();
+        } else {
+            Matcher m = DEADLINE_RE.matcher(args);
 
-        boolean isMatch = m.matches();
-        boolean hasByMarker = args.contains("/by");
-        boolean hasWrongFormat = !isMatch && hasByMarker;
-        boolean hasNoBy = !isMatch && !hasByMarker;
+            boolean isMatch = m.matches();
+            boolean hasByMarker = args.contains("/by");
+            boolean hasWrongFormat = !isMatch && hasByMarker;
+            boolean hasNoBy = !isMatch && !hasByMarker;
 
-        if (hasNoBy) {
-            throw new LockyException(
-                    "Missing \"/by\". Format: \"deadline <desc> /by yyyy-MM-dd HHmm (e.g. 2019-12-02 1800)\"");
-        } else if (hasWrongFormat) {
-            throw new LockyException(
-                    "Bad deadline format. Use: \"deadline <desc> /by yyyy-MM-dd HHmm (e.g. 2019-12-02 1800)\"");
+            if (hasNoBy) {
+                throw new LockyException(
+                        "Missing \"/by\". Format: \"deadline <desc> /by yyyy-MM-dd HHmm (e.g. 2019-12-02 1800)\"");
+            } else if (hasWrongFormat) {
+                throw new LockyException(
+                        "Bad deadline format. Use: \"deadline <desc> /by yyyy-MM-dd HHmm (e.g. 2019-12-02 1800)\"");
+            }
+            desc = m.group(1).trim();
+            by = m.group(2).trim();
         }
-
-        String desc = m.group(1).trim();
-        String by = m.group(2).trim();
         if (desc.isEmpty()) {
             throw new LockyException("Deadline description cannot be empty.");
         }
@@ -126,7 +269,7 @@ public final class Parser {
         }
 
         try {
-            LocalDateTime dt = LocalDateTime.parse(by, DateTimeFormat.INPUT);
+            LocalDateTime dt = DateTimeFormat.parseInput(by);
             return new ParsedDeadline(desc, dt);
         } catch (DateTimeParseException dpe) {
             throw new LockyException("Invalid date format. Use yyyy-MM-dd HHmm (e.g. 2019-12-02 1800)");
@@ -150,20 +293,33 @@ public final class Parser {
             throw new LockyException("Event needs \"description /from start /to end\".");
         }
 
-        Matcher m = EVENT_RE.matcher(args);
-        if (!m.matches()) {
-            if (!args.contains("/from")) {
-                throw new LockyException("Missing \"/from\". Format: \"event <desc> /from <start> /to <end>\"");
-            }
-            if (!args.contains("/to")) {
-                throw new LockyException("Missing \"/to\".   Format: \"event <desc> /from <start> /to <end>\"");
+        String desc;
+        String start;
+        String end;
+        int from = findMarker(args, "/from", 1);
+        int startAt = from > 0 ? skipRegexSpace(args, from + 5) : -1;
+        int to = from > 0 ? findMarker(args, "/to", startAt + 1) : -1;
+        if (to > 0 && !hasLineTerminator(args)) {
+            desc = args.substring(0, from).trim();
+            start = args.substring(startAt, to).trim();
+            end = args.substring(to + 3).trim();
+        } else {
+            Matcher m = EVENT_RE.matcher(args);
+            if (!m.matches()) {
+                if (!args.contains("/from")) {
+                    throw new LockyException(
+                            "Missing \"/from\". Format: \"event <desc> /from <start> /to <end>\"");
+                }
+                if (!args.contains("/to")) {
+                    throw new LockyException(
+                            "Missing \"/to\".   Format: \"event <desc> /from <start> /to <end>\"");
+                }
+                throw new LockyException("Bad event format. Use: \"event <desc> /from <start> /to <end>\"");
             }
-            throw new LockyException("Bad event format. Use: \"event <desc> /from <start> /to <end>\"");
+            desc = m.group(1).trim();
+            start = m.group(2).trim();
+            end = m.group(3).trim();
         }
-
-        String desc = m.group(1).trim();
-        String start = m.group(2).trim();
-        String end = m.group(3).trim();
         if (desc.isEmpty()) {
             throw new LockyException("Event description cannot be empty.");
         }
@@ -175,8 +331,8 @@ public final class Parser {
         }
 
         try {
-            LocalDateTime startDt = LocalDateTime.parse(start, DateTimeFormat.INPUT);
-            LocalDateTime endDt = LocalDateTime.parse(end, DateTimeFormat.INPUT);
+            LocalDateTime startDt = DateTimeFormat.parseInput(start);
+            LocalDateTime endDt = DateTimeFormat.parseInput(end);
             if (!endDt.isAfter(startDt)) {
                 throw new LockyException("Event end must be after start.");
             }
@@ -186,6 +342,165 @@ public final class Parser {
         }
     }
 
+    /**
+     * Parses {@code overlap} arguments in the form
+     * /from yyyy-MM-dd HHmm /to yyyy-MM-dd HHmm
+     * into a time window.
+     *
+     * @param args the raw argument string after the overlap command.
+     * @return a ParsedWindow with start and end date/time.
+     * @throws LockyException if the format is invalid, times cannot be parsed,
+     *                        or the end is not after the start.
+     */
+    public static ParsedWindow parseWindowArgs(String args) throws LockyException {
+        Matcher m = WINDOW_RE.matcher(args);
+        if (!m.matches()) {
+            throw new LockyException("Overlap needs a window. Use: \"overlap /from <start> /to <end>\"");
+        }
+
+        try {
+            LocalDateTime startDt = DateTimeFormat.parseInput(m.group(1).trim());
+            LocalDateTime endDt = DateTimeFormat.parseInput(m.group(2).trim());
+            if (!endDt.isAfter(startDt)) {
+                throw new LockyException("Window end must be after start.");
+            }
+            return new ParsedWindow(startDt, endDt);
+        } catch (DateTimeParseException dpe) {
+            throw new LockyException("Invalid date format. Use yyyy-MM-dd HHmm (e.g. 2019-12-02 1800)");
+        }
+    }
+
+    /**
+     * Parses {@code due} arguments in the form
+     * before yyyy-MM-dd HHmm into a date/time.
+     *
+     * @param args the raw argument string after the due command.
+     * @return the parsed upper bound.
+     * @throws LockyException if the format is invalid or the date cannot be parsed.
+     */
+    public static LocalDateTime parseDueArgs(String args) throws LockyException {
+        Matcher m = DUE_RE.matcher(args);
+        if (!m.matches()) {
+            throw new LockyException("Due needs a date. Use: \"due before yyyy-MM-dd HHmm\"");
+        }
+        return parseInputDate(m.group(1).trim());
+    }
+
+    /**
+     * Parses {@code between} arguments in the form
+     * yyyy-MM-dd HHmm and yyyy-MM-dd HHmm into a time window.
+     *
+     * @param args the raw argument string after the between command.
+     * @return a ParsedWindow with start and end date/time.
+     * @throws LockyException if the format is invalid, times cannot be parsed,
+     *                        or the end is before the start.
+     */
+    public static ParsedWindow parseBetweenArgs(String args) throws LockyException {
+        Matcher m = BETWEEN_RE.matcher(args);
+        if (!m.matches()) {
+            throw new LockyException("Between needs two dates. Use: \"between <start> and <end>\"");
+        }
+        LocalDateTime startDt = parseInputDate(m.group(1).trim());
+        LocalDateTime endDt = parseInputDate(m.group(2).trim());
+        if (endDt.isBefore(startDt)) {
+            throw new LockyException("Window end must not be before start.");
+        }
+        return new ParsedWindow(startDt, endDt);
+    }
+
+    /**
+     * Parses {@code list} arguments in the form {@code [page N] [--limit M]}.
+     * A page holds {@code M} tasks, or 20 if no limit is given; a limit alone
+     * shows the first {@code M} tasks.
+     *
+     * @param args the raw argument string after the list command.
+     * @return a ParsedPage with the 1-based page number and page size.
+     * @throws LockyException if the arguments are malformed or zero.
+     */
+    public static ParsedPage parseListArgs(String args) throws LockyException {
+        Matcher m = LIST_RE.matcher(args.trim());
+        if (!m.matches()) {
+            throw new LockyException("Try \"list\", \"list page 2\" or \"list --limit 50\".");
+        }
+        try {
+            int page = m.group(1) == null ? 1 : Integer.parseInt(m.group(1));
+            int size = m.group(2) == null
+                    ? (m.group(1) == null ? Integer.MAX_VALUE : DEFAULT_PAGE_SIZE)
+                    : Integer.parseInt(m.group(2));
+            if (page < 1 || size < 1) {
+                throw new LockyException("Pages and limits start at 1.");
+            }
+            return new ParsedPage(page, size);
+        } catch (NumberFormatException e) {
+            throw new LockyException("That page or limit is too large.");
+        }
+    }
+
+    /**
+     * Parses a bulk task selection: 1-based numbers and ranges separated by commas,
+     * such as {@code 1-500} or {@code 3,7,9-12}, or {@code find:<query>}.
+     * A lone number, even a negative one, selects that one task, so it is
+     * reported like {@code mark N}. Input that looks like neither gets the same
+     * error as a single bad number.
+     *
+     * @param args the raw argument string after the command.
+     * @param verb the command name, used in error messages.
+     * @return the parsed selection.
+     * @throws LockyException if the selection is malformed.
+     */
+    public static ParsedSelection parseSelection(String args, String verb) throws LockyException {
+        String trimmed = args.trim();
+        if (trimmed.regionMatches(true, 0, FIND_PREFIX, 0, FIND_PREFIX.length())) {
+            String query = trimmed.substring(FIND_PREFIX.length()).trim();
+            if (query.isEmpty()) {
+                throw new LockyException("Nothing to find. Try \"" + verb + " find:book\".");
+            }
+            return new ParsedSelection(List.of(), query);
+        }
+        try {
+            // a lone number, negative ones included, is one task and fails as "No such task" when resolved
+            int index = Integer.parseInt(trimmed);
+            return new ParsedSelection(List.of(new IndexRange(index, index)), null);
+        } catch (NumberFormatException e) {
+            // not a lone number, so a list of ranges
+        }
+        if (trimmed.indexOf('-') < 0 && trimmed.indexOf(',') < 0) {
+            throw new LockyException("Not a number: \"" + args + "\". Try \"" + verb + " 2\".");
+        }
+
+        List<IndexRange> ranges = new ArrayList<>();
+        for (String part : trimmed.split(",", -1)) {
+            String p = part.trim();
+            int dash = p.indexOf('-');
+            try {
+                if (dash < 0) {
+                    int index = Integer.parseInt(p);
+                    ranges.add(new IndexRange(index, index));
+                } else {
+                    int from = Integer.parseInt(p.substring(0, dash).trim());
+                    int to = Integer.parseInt(p.substring(dash + 1).trim());
+                    if (from > to) {
+                        throw new LockyException("Range " + p + " is backwards. Try \"" + verb + " "
+                                + to + "-" + from + "\".");
+                    }
+                    ranges.add(new IndexRange(from, to));
+                }
+            } catch (NumberFormatException e) {
+                throw new LockyException("Bad task list: \"" + args + "\". Try \"" + verb + " 1-5\" or \""
+                        + verb + " 2,4,6\".");
+            }
+        }
+        return new ParsedSelection(ranges, null);
+    }
+
+    private static LocalDateTime parseInputDate(String raw) throws LockyException {
+        try {
+            return DateTimeFormat.parseInput(raw);
+        } catch (DateTimeParseException dpe) {
+            throw new LockyException("Invalid date format. Use yyyy-MM-dd HHmm (e.g. 2019-12-02 1800)");
+        }
+    }
+
     /**
      * Holds a parsed command and its raw arguments.
      *
@@ -210,4 +525,61 @@ public final class Parser {
      * @param end LocalDateTime object denoting start of task.
      */
     public record ParsedEvent(String description, LocalDateTime start, LocalDateTime end) {}
+
+    /**
+     * Holds a parsed time window.
+     *
+     * @param start LocalDateTime object denoting start of window.
+     * @param end LocalDateTime object denoting end of window.
+     */
+    public record ParsedWindow(LocalDateTime start, LocalDateTime end) {}
+
+    /**
+     * Holds a page of the task list.
+     *
+     * @param page 1-based page number.
+     * @param size number of tasks per page.
+     */
+    public record ParsedPage(int page, int size) {}
+
+    /**
+     * Holds an inclusive range of 1-based task numbers.
+     *
+     * @param from first task number.
+     * @param to last task number.
+     */
+    public record IndexRange(int from, int to) {}
+
+    /**
+     * Holds a parsed bulk selection: either task number ranges or a find query.
+     *
+     * @param ranges ranges of task numbers; empty for a query.
+     * @param query find query, or null for ranges.
+     */
+    public record ParsedSelection(List<IndexRange> ranges, String query) {
+        /**
+         * Resolves the selection against a list.
+         *
+         * @param list the list to select from.
+         * @return the selected 1-based positions, ascending and without duplicates.
+         * @throws LockyException if a number is not a task in the list.
+         */
+        public int[] resolve(TaskList list) throws LockyException {
+            if (query != null) {
+                return list.findIndices(query);
+            }
+            int size = list.getSize();
+            BitSet chosen = new BitSet();
+            for (IndexRange r : ranges) {
+                if (r.from() < 1 || r.from() > size) {
+                    throw new LockyException("No such task: " + r.from());
+                }
+                if (r.to() > size) {
+                    throw new LockyException("No such task: " + r.to());
+                }
+                chosen.set(r.from(), r.to() + 1);
+            }
+            return chosen.stream().toArray();
+        }
+    }
 }
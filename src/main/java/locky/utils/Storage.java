@@ -3,17 +3,27 @@ package locky.utils;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
+import locky.events.StorageSaveEvent;
+import locky.tasks.CompactTaskList;
 import locky.tasks.Deadline;
 import locky.tasks.Event;
 import locky.tasks.Task;
@@ -21,14 +31,13 @@ import locky.tasks.Todo;
 
 /**
  * Handles persistent storage of tasks to and from a text file.
+ * Snapshots are written to a temporary file, forced to disk and atomically
+ * renamed over the old file, and end with a CRC-32 trailer line that
+ * {@link #load()} verifies.
  */
 public class Storage {
-    private static final List<DateTimeFormatter> ACCEPTED_INPUT_FORMATS = List.of(
-            DateTimeFormat.INPUT,
-            DateTimeFormatter.ISO_LOCAL_DATE_TIME,
-            DateTimeFormat.DISPLAY
-    );
-    private final File file;
+    private static final String CHECKSUM_PREFIX = "#crc32|";
+    protected final File file;
 
     /**
      * Creates a new {@code Locky.utils.Storage} instance that will read from and
@@ -40,57 +49,320 @@ public class Storage {
         this.file = new File(path);
     }
 
+    /**
+     * Creates the storage selected by system properties.
+     * With {@code -Dlocky.journal=true} mutations are appended to a journal
+     * instead of rewriting the whole file; with {@code -Dlocky.format=binary}
+     * snapshots use the {@link BinaryStorage} format; with {@code -Dlocky.mmap=true}
+     * the text file is memory-mapped and decoded lazily by {@link MappedStorage};
+     * otherwise a plain text
+     * {@code Locky.utils.Storage} is used. With {@code -Dlocky.async=true}
+     * the chosen storage is wrapped in an {@link AsyncStorage} so that writes
+     * happen on a background thread. Every operation of the chosen storage
+     * is timed by a {@link MeteredStorage}.
+     *
+     * @param path path to the file used for persistent storage.
+     * @return the storage to use for the given path.
+     */
+    public static Storage open(String path) {
+        Storage storage;
+        if (Boolean.getBoolean("locky.journal")) {
+            storage = new JournaledStorage(path);
+        } else if ("binary".equals(System.getProperty("locky.format"))) {
+            storage = new BinaryStorage(path);
+        } else if (Boolean.getBoolean("locky.mmap")) {
+            storage = new MappedStorage(path);
+        } else {
+            storage = new Storage(path);
+        }
+        storage = new MeteredStorage(storage);
+        if (Boolean.getBoolean("locky.async")) {
+            return new AsyncStorage(storage);
+        }
+        return storage;
+    }
+
     /**
      * Loads tasks from the storage file into memory.
      * Each line in the file is parsed into a corresponding {@code Locky.tasks.Task}
      * object.
-     * If the file does not exist, an empty list is returned.
+     * If the file does not exist, an empty list is returned. A file in the
+     * {@link BinaryStorage} format is recognised and decoded as such.
      *
      * @return a list of tasks read from the storage file.
      * @throws IOException IOException if an I/O error occurs while reading the file.
      */
     public ArrayList<Task> load() throws IOException {
         ArrayList<Task> list = new ArrayList<>();
+        loadInto(list);
+        return list;
+    }
+
+    /**
+     * Appends the stored tasks to the given list, in file order.
+     * This is what {@link #load()} does; subclasses override this method to
+     * change how tasks are read, so that every kind of list is filled the same way.
+     * With {@code -Dlocky.parallelLoad=true}, large text files are parsed on the
+     * common {@code ForkJoinPool} by {@link ParallelTextLoader}.
+     *
+     * @param list the list to append the loaded tasks to.
+     * @throws IOException if an I/O error occurs while reading the file.
+     */
+    protected void loadInto(List<Task> list) throws IOException {
         if (!file.exists()) {
-            return list;
+            return;
+        }
+        if (BinaryStorage.isBinaryFile(file)) {
+            new BinaryStorage(file.getPath()).loadInto(list);
+            return;
         }
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+        if (isParallelLoad()) {
+            if (!new ParallelTextLoader(this, ForkJoinPool.commonPool()).loadInto(file, list)) {
+                quarantineCorruptFile();
+            }
+            return;
+        }
+        CRC32 crc = new CRC32();
+        String trailer = null;
+        long checkedValue = 0;
+        boolean hasDataAfterTrailer = false;
+        try (BufferedReader br = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
             String line;
             while ((line = br.readLine()) != null) {
+                if (line.startsWith(CHECKSUM_PREFIX)) {
+                    trailer = line;
+                    checkedValue = crc.getValue();
+                    continue;
+                }
+                hasDataAfterTrailer = trailer != null;
+                crc.update(line.getBytes(StandardCharsets.UTF_8));
+                crc.update('\n');
                 Task t = parseLine(line);
                 if (t != null) {
                     list.add(t);
                 }
             }
         }
+        if (trailer != null && (hasDataAfterTrailer || !trailer.equals(checksumLine(checkedValue)))) {
+            quarantineCorruptFile();
+        }
+    }
+
+    /**
+     * Returns whether to parse the file on several threads: only with
+     * {@code -Dlocky.parallelLoad=true}, and only for files large enough to gain from it.
+     */
+    private boolean isParallelLoad() {
+        long length = file.length();
+        return Boolean.getBoolean("locky.parallelLoad")
+                && length >= ParallelTextLoader.MIN_PARALLEL_BYTES && length <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Loads tasks for a {@code Locky.tasks.TaskList}. Subclasses may return a
+     * list that decodes tasks on demand; the default loads them eagerly.
+     * With {@code -Dlocky.compact=true} tasks are loaded straight into a
+     * {@link CompactTaskList}, so very large lists never exist as objects.
+     *
+     * @return a mutable list of the stored tasks.
+     * @throws IOException if an I/O error occurs while reading the file.
+     */
+    public List<Task> loadLazily() throws IOException {
+        if (!Boolean.getBoolean("locky.compact")) {
+            return load();
+        }
+        CompactTaskList list = new CompactTaskList();
+        loadInto(list.asLoadTarget());
         return list;
     }
 
     /**
      * Saves all tasks to the storage file.
-     * Tasks are serialized into pipe-delimited strings and written
-     * line by line, overwriting any existing file contents.
+     * Tasks are serialized into pipe-delimited strings and written to a
+     * temporary file, which is forced to disk and then atomically renamed
+     * over the existing file, so a crash never leaves a truncated file behind.
      *
      * @param list the list of tasks to be written to storage.
      * @throws IOException if an I/O error occurs while writing the file.
      */
-    public void save(ArrayList<Task> list) throws IOException {
+    public void save(List<Task> list) throws IOException {
+        StorageSaveEvent event = new StorageSaveEvent();
+        event.begin();
         ensureParentDir();
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(file, false))) {
+        File tmp = new File(file.getPath() + ".tmp");
+        long bytes = writeSnapshot(tmp, list);
+        replaceAtomically(tmp, file);
+        event.commit(file.getPath(), "snapshot", list.size(), bytes);
+    }
+
+    /**
+     * Persists the list after {@code added} has been appended to it.
+     * The default implementation rewrites the whole file.
+     *
+     * @param list the full list of tasks, including the new task.
+     * @param added the task that was appended.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    public void saveAdded(List<Task> list, Task added) throws IOException {
+        save(list);
+    }
+
+    /**
+     * Persists the list after the task at {@code index} changed its completion status.
+     * The default implementation rewrites the whole file.
+     *
+     * @param list the full list of tasks.
+     * @param index the 0-based index of the updated task.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    public void saveUpdated(List<Task> list, int index) throws IOException {
+        save(list);
+    }
+
+    /**
+     * Persists the list after the task at {@code index} was removed from it.
+     * The default implementation rewrites the whole file.
+     *
+     * @param list the full list of tasks, without the removed task.
+     * @param index the 0-based index the removed task used to occupy.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    public void saveDeleted(List<Task> list, int index) throws IOException {
+        save(list);
+    }
+
+    /**
+     * Copies every task from this storage into {@code target}, e.g. to convert
+     * between the text and {@link BinaryStorage} formats.
+     *
+     * @param target the storage to overwrite with this storage's tasks.
+     * @throws IOException if reading or writing fails.
+     */
+    public void copyTo(Storage target) throws IOException {
+        target.save(load());
+    }
+
+    /**
+     * Blocks until every earlier save has reached the file.
+     * Writes of this class are synchronous, so there is nothing to wait for.
+     *
+     * @throws IOException if an earlier deferred write failed.
+     */
+    public void flush() throws IOException {
+    }
+
+    /**
+     * Returns whether {@link #saveAdded}, {@link #saveUpdated} and {@link #saveDeleted}
+     * cost less than a full {@link #save}, so that a wrapper batching writes knows
+     * whether to forward single changes or collapse them into one save.
+     *
+     * @return false, since this class rewrites the whole file for every change.
+     */
+    protected boolean hasIncrementalSaves() {
+        return false;
+    }
+
+    /**
+     * Detaches the list returned by {@link #loadLazily()} from anything a save
+     * would change. A wrapper that saves on another thread calls this first on
+     * the thread that owns the list, so that the save itself never touches it.
+     * The default does nothing, since an eagerly loaded list holds no file resources.
+     */
+    protected void releaseLoaded() {
+    }
+
+    public String getPath() {
+        return file.getPath();
+    }
+
+    /**
+     * Writes the tasks and a checksum trailer to {@code target} and forces
+     * the contents to disk before returning.
+     *
+     * @param target the file to write; truncated if it exists.
+     * @param list the tasks to write.
+     * @return the number of bytes written.
+     * @throws IOException if an I/O error occurs while writing.
+     */
+    protected long writeSnapshot(File target, List<Task> list) throws IOException {
+        try (FileChannel ch = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 crc = new CRC32();
+            BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(
+                    new CheckedOutputStream(Channels.newOutputStream(ch), crc), StandardCharsets.UTF_8));
             for (Task t : list) {
                 bw.write(serialize(t));
-                bw.newLine();
+                bw.write('\n');
             }
+            bw.flush();
+            bw.write(checksumLine(crc.getValue()));
+            bw.write('\n');
+            bw.flush();
+            ch.force(true);
+            Metrics.count("storage.bytesWritten", ch.position());
+            return ch.position();
         }
     }
 
+    /**
+     * Renames {@code source} over {@code target} atomically where the file system allows it,
+     * then syncs the parent directory so the rename itself survives a crash.
+     *
+     * @param source the fully written replacement file.
+     * @param target the file to replace.
+     * @throws IOException if the file cannot be moved.
+     */
+    protected void replaceAtomically(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Path dir = target.getAbsoluteFile().toPath().getParent();
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException ignore) {
+            // directories cannot be opened for syncing on every platform
+        }
+    }
+
+    static String checksumLine(long value) {
+        return CHECKSUM_PREFIX + String.format("%08x", value);
+    }
+
+    /**
+     * Moves a file whose checksum does not match aside, so the next save
+     * cannot overwrite the only copy of the damaged data.
+     *
+     * @throws IOException always, describing where the damaged file was kept.
+     */
+    protected void quarantineCorruptFile() throws IOException {
+        quarantineCorruptFile("checksum mismatch", null);
+    }
+
+    /**
+     * Moves a file that could not be decoded aside, so the next save
+     * cannot overwrite the only copy of the damaged data.
+     *
+     * @param problem what is wrong with the file.
+     * @param cause the exception that revealed the problem, or null.
+     * @throws IOException always, describing the problem and where the damaged file was kept.
+     */
+    protected void quarantineCorruptFile(String problem, Throwable cause) throws IOException {
+        File corrupt = new File(file.getPath() + ".corrupt");
+        Files.move(file.toPath(), corrupt.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        throw new IOException(problem + " in " + file.getName()
+                + ", damaged file kept as " + corrupt.getName(), cause);
+    }
+
     /**
      * Ensures that the parent directory of the storage file exists.
      * If the directory does not exist, it will be created.
      *
      * @throws IOException if the directories cannot be created.
      */
-    private void ensureParentDir() throws IOException {
+    protected void ensureParentDir() throws IOException {
         File parent = file.getParentFile();
         boolean hasParent = parent != null;
         boolean hasMissingParent = hasParent && !parent.exists();
@@ -106,7 +378,7 @@ public class Storage {
      * @param t the task to be serialized.
      * @return the serialized form of the task.
      */
-    private String serialize(Task t) {
+    String serialize(Task t) {
         if (t instanceof Todo todo) {
             return String.join("|",
                     "T",
@@ -137,7 +409,7 @@ public class Storage {
      * @return the reconstructed task, or null if the line
      *         is malformed or unrecognized.
      */
-    private Task parseLine(String line) {
+    Task parseLine(String line) {
         String[] p = line.split("\\|");
         if (p.length < 3) {
             return null;
@@ -177,8 +449,8 @@ public class Storage {
     /**
      * Attempts to parse a string into a LocalDateTime using a list
      * of accepted date/time formats.
-     * This method tries each accepted formatter in sequence until one
-     * succeeds. If none match, an exception is thrown.
+     * The accepted layouts are read by {@code Locky.utils.DateTimeFormat},
+     * which only falls back to its formatters for unusual text.
      *
      * @param raw the string to be parsed into a date/time.
      * @return the parsed LocalDateTime.
@@ -186,14 +458,11 @@ public class Storage {
      *                                  any accepted format.
      */
     private LocalDateTime parseDateFlexible(String raw) {
-        for (DateTimeFormatter fmt : ACCEPTED_INPUT_FORMATS) {
-            try {
-                return LocalDateTime.parse(raw, fmt);
-            } catch (DateTimeParseException ignore) {
-                // try next
-            }
+        LocalDateTime parsed = DateTimeFormat.parseStored(raw);
+        if (parsed == null) {
+            throw new IllegalArgumentException("Unrecognized datetime: \"" + raw
+                    + "\". Expected formats like \"" + DateTimeFormat.INPUT + "\" or ISO-8601.");
         }
-        throw new IllegalArgumentException("Unrecognized datetime: \"" + raw
-                + "\". Expected formats like \"" + DateTimeFormat.INPUT + "\" or ISO-8601.");
+        return parsed;
     }
 }
@@ -0,0 +1,82 @@
+package locky.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import locky.app.ChatTranscript.Message;
+
+public class ChatTranscriptTest {
+    @Test
+    public void add_pastLimit_archivesOldestInBatches() {
+        List<Message> visible = new ArrayList<>();
+        try (ChatTranscript transcript = new ChatTranscript(visible, 10, 4)) {
+            for (int i = 0; i < 11; i++) {
+                transcript.add(new Message("m" + i, i % 2 == 0));
+            }
+            assertEquals(7, visible.size());
+            assertEquals("m4", visible.get(0).text());
+            assertTrue(transcript.hasOlder());
+        }
+    }
+
+    @Test
+    public void loadOlder_restoresArchivedMessagesInOrder() {
+        List<Message> visible = new ArrayList<>();
+        try (ChatTranscript transcript = new ChatTranscript(visible, 4, 2)) {
+            for (int i = 0; i < 9; i++) {
+                transcript.add(new Message("m" + i + " ✓", i % 3 == 0));
+            }
+            assertEquals(3, transcript.loadOlder(3));
+            assertEquals(new Message("m3 ✓", true), visible.get(0));
+            assertEquals(new Message("m5 ✓", false), visible.get(2));
+
+            assertEquals(3, transcript.loadOlder(5));
+            assertEquals(9, visible.size());
+            for (int i = 0; i < 9; i++) {
+                assertEquals("m" + i + " ✓", visible.get(i).text());
+            }
+            assertFalse(transcript.hasOlder());
+            assertEquals(0, transcript.loadOlder(5));
+        }
+    }
+
+    @Test
+    public void close_afterArchiving_deletesArchiveFile() {
+        List<Message> visible = new ArrayList<>();
+        ChatTranscript transcript = new ChatTranscript(visible, 4, 2);
+        for (int i = 0; i < 6; i++) {
+            transcript.add(new Message("m" + i, false));
+        }
+        File archive = transcript.getArchiveFile();
+        assertTrue(archive.exists());
+
+        transcript.close();
+
+        assertFalse(archive.exists());
+        assertFalse(transcript.hasOlder());
+        assertEquals(4, visible.size());
+    }
+
+    @Test
+    public void replace_findsPlaceholderByIdentity() {
+        List<Message> visible = new ArrayList<>();
+        try (ChatTranscript transcript = new ChatTranscript(visible, 10, 4)) {
+            Message first = new Message("...", false);
+            Message second = new Message("...", false);
+            transcript.add(first, second);
+
+            transcript.replace(second, new Message("reply 2", false));
+            transcript.replace(first, new Message("reply 1", false));
+
+            assertEquals("reply 1", visible.get(0).text());
+            assertEquals("reply 2", visible.get(1).text());
+        }
+    }
+}
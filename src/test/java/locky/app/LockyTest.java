@@ -0,0 +1,135 @@
+package locky.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class LockyTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void runRepl_nonInteractive_streamsResponsesWithoutGreeting() throws Exception {
+        Path file = dir.resolve("locky.txt");
+        StringWriter out = new StringWriter();
+        new Locky(file.toString()).runRepl(new BufferedReader(new StringReader("todo read book\nmark 1\n")), out,
+                false);
+
+        String line = "_".repeat(60);
+        assertEquals("\nAdded: [T][ ] read book\n\n" + line + "\n\nLocked In! Task marked as completed:\n"
+                + "[T][X] read book\n\n" + line + "\n", out.toString());
+        assertTrue(Files.readString(file).startsWith("T|1|read book"));
+    }
+
+    @Test
+    public void runRepl_interactive_greetsAndStopsAtBye() throws Exception {
+        StringWriter out = new StringWriter();
+        Locky locky = new Locky(dir.resolve("locky.txt").toString());
+        locky.runRepl(new BufferedReader(new StringReader("bye\ntodo never read\n")), out, true);
+
+        String text = out.toString();
+        assertTrue(text.contains(locky.getGreeting()), text);
+        assertTrue(text.endsWith("You better Lock In!\n" + "_".repeat(60) + "\n\n"), text);
+        assertFalse(text.contains("never read"), text);
+    }
+
+    @Test
+    public void getResponse_typoOrSecondBeginInBatch_keepsBatchOpen() throws Exception {
+        Path file = dir.resolve("locky.txt");
+        Locky locky = new Locky(file.toString());
+        locky.getResponse("begin");
+        locky.getResponse("todo read book");
+
+        String stillOpen = "(Nothing was undone; the batch is still open with 1 change(s). "
+                + "Finish it with \"commit\" or \"rollback\".)\n";
+        assertEquals("Already in a batch. Finish it with \"commit\" or \"rollback\".\n" + stillOpen,
+                locky.getResponse("begin"));
+        assertTrue(locky.getResponse("tood buy milk").endsWith(stillOpen));
+        assertEquals("No such task: 99\n" + stillOpen, locky.getResponse("mark 99"));
+        locky.getResponse("commit");
+
+        assertTrue(Files.readString(file).startsWith("T|0|read book"));
+    }
+
+    @Test
+    public void getResponse_negativeTaskNumber_saysNoSuchTask() throws Exception {
+        Locky locky = new Locky(dir.resolve("locky.txt").toString());
+        locky.getResponse("todo read book");
+
+        for (String verb : new String[] {"mark", "unmark", "delete"}) {
+            assertEquals("No such task: -1\n", locky.getResponse(verb + " -1"));
+            assertEquals("No such task: -1\n", locky.getResponse(verb + " -1 "));
+        }
+    }
+
+    @Test
+    public void runRepl_endsWithBatchOpen_warnsChangesNotSaved() throws Exception {
+        String warning = "(Warning: a batch was still open; its 1 change(s) were not saved.)\n";
+        StringWriter out = new StringWriter();
+        new Locky(dir.resolve("a.txt").toString()).runRepl(
+                new BufferedReader(new StringReader("begin\ntodo read book\n")), out, false);
+        assertTrue(out.toString().endsWith(warning), out.toString());
+
+        Locky locky = new Locky(dir.resolve("b.txt").toString());
+        locky.getResponse("begin");
+        locky.getResponse("todo read book");
+        assertEquals(warning + "You better Lock In!\n", locky.getResponse("bye"));
+    }
+
+    @Test
+    public void getResponse_emitsFlightRecorderEvents() throws Exception {
+        Path dump = dir.resolve("locky.jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : List.of("locky.CommandParse", "locky.CommandExecute", "locky.StorageLoad",
+                    "locky.StorageSave")) {
+                recording.enable(name).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            Locky locky = new Locky(dir.resolve("locky.txt").toString());
+            locky.getResponse("todo read book");
+            locky.getResponse("mark 2");
+            locky.getResponse("nonsense");
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        assertEquals(List.of("locky.CommandParse", "locky.CommandParse", "locky.CommandParse"), names(events, "Parse"));
+        assertEquals(1, names(events, "StorageLoad").size());
+
+        List<RecordedEvent> executes = events.stream()
+                .filter(e -> e.getEventType().getName().equals("locky.CommandExecute"))
+                .collect(Collectors.toList());
+        assertEquals(2, executes.size());
+        assertEquals(List.of("locky.commands.MarkCommand", "locky.commands.TodoCommand"), executes.stream()
+                .map(e -> e.getClass("commandClass").getName()).sorted().collect(Collectors.toList()));
+        assertEquals(1, executes.stream().filter(e -> e.getBoolean("isSuccessful")).count());
+
+        RecordedEvent save = events.stream()
+                .filter(e -> e.getEventType().getName().equals("locky.StorageSave"))
+                .findFirst().orElseThrow();
+        assertEquals(1, save.getInt("taskCount"));
+        assertEquals(dir.resolve("locky.txt").toFile().length(), save.getLong("bytes"));
+    }
+
+    private static List<String> names(List<RecordedEvent> events, String suffix) {
+        return events.stream().map(e -> e.getEventType().getName())
+                .filter(n -> n.endsWith(suffix)).collect(Collectors.toList());
+    }
+}
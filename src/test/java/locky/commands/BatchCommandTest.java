@@ -0,0 +1,48 @@
+package locky.commands;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import locky.error.LockyException;
+import locky.tasks.TaskList;
+import locky.utils.Storage;
+
+public class BatchCommandTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void execute_fileWithCommit_rejectsLineAndRollsBack() throws Exception {
+        Storage storage = new Storage(dir.resolve("locky.txt").toString());
+        TaskList list = new TaskList(storage);
+        list.addTodo("keep");
+        Path file = dir.resolve("import.txt");
+        Files.writeString(file, "todo half done\ncommit\ntodo never reached\n");
+
+        LockyException ex = assertThrows(LockyException.class,
+                () -> new BatchCommand(file.toString()).execute(list));
+
+        assertTrue(ex.getMessage().startsWith("Line 2: \"commit\""));
+        assertFalse(list.isInBatch());
+        assertEquals("1. [T][ ] keep\n", list.getListString());
+        assertEquals(1, storage.load().size());
+    }
+
+    @Test
+    public void execute_nestedBatch_rejected() throws Exception {
+        TaskList list = new TaskList(new Storage(dir.resolve("locky.txt").toString()));
+        Path file = dir.resolve("import.txt");
+        Files.writeString(file, "batch " + file + "\n");
+
+        assertThrows(LockyException.class, () -> new BatchCommand(file.toString()).execute(list));
+        assertFalse(list.isInBatch());
+    }
+}
@@ -0,0 +1,57 @@
+package locky.commands;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import locky.tasks.TaskList;
+import locky.utils.Storage;
+
+public class ListCommandTest {
+    @TempDir
+    Path dir;
+
+    private TaskList listOf(int count) throws Exception {
+        TaskList list = new TaskList(new Storage(dir.resolve("locky.txt").toString()));
+        list.beginBatch();
+        for (int i = 1; i <= count; i++) {
+            list.addTodo("task " + i);
+        }
+        list.commitBatch();
+        return list;
+    }
+
+    @Test
+    public void execute_smallList_printsEverything() throws Exception {
+        String reply = new ListCommand().execute(listOf(3));
+
+        assertEquals("Oh my, look at all these tasks! Chop chop!\n"
+                + "1. [T][ ] task 1\n2. [T][ ] task 2\n3. [T][ ] task 3\n", reply);
+    }
+
+    @Test
+    public void execute_largeList_printsEveryTask() throws Exception {
+        TaskList list = listOf(1001);
+        StringWriter out = new StringWriter();
+        new ListCommand().execute(list, out);
+
+        String reply = out.toString();
+        assertEquals(1 + 1001, reply.split("\n").length);
+        assertTrue(reply.endsWith("1001. [T][ ] task 1001\n"), reply);
+        assertEquals(reply, new ListCommand().execute(list));
+    }
+
+    @Test
+    public void execute_pageAsked_printsPageAndNext() throws Exception {
+        String reply = new ListCommand("page 2").execute(listOf(45));
+
+        assertEquals(1 + 20 + 1, reply.split("\n").length);
+        assertTrue(reply.startsWith("Oh my, look at all these tasks! Chop chop!\n21. [T][ ] task 21\n"), reply);
+        assertTrue(reply.endsWith("(Showing 21-40 of 45. Next: \"list page 3\".)\n"), reply);
+    }
+}
@@ -0,0 +1,121 @@
+package locky.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.lang.ref.WeakReference;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class CompactTaskListTest {
+    private static final LocalDateTime START = LocalDateTime.of(2019, 12, 2, 9, 0);
+
+    @Test
+    public void loadTarget_mixedTasks_rendersLikeObjects() {
+        List<Task> expected = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            expected.add(new Todo("todo ünïcode " + i, i % 2 == 0));
+            expected.add(new Deadline("deadline " + i, false, START.plusMinutes(i)));
+            expected.add(new Event("event " + i, true, START.plusHours(i), START.plusHours(i + 1)));
+        }
+        CompactTaskList compact = new CompactTaskList();
+        compact.asLoadTarget().addAll(expected);
+
+        assertEquals(expected.size(), compact.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), compact.peek(i).toString());
+        }
+        assertNotSame(expected.get(0), compact.get(0));
+    }
+
+    @Test
+    public void get_whileViewHeld_returnsSameView() {
+        CompactTaskList compact = new CompactTaskList();
+        compact.asLoadTarget().add(new Todo("read book", false));
+
+        Task view = compact.get(0);
+        assertSame(view, compact.get(0));
+        assertSame(view, compact.peek(0));
+        assertSame(view, compact.setDone(0, true));
+        assertEquals("[T][X] read book", view.toString());
+    }
+
+    @Test
+    public void setDone_viewCollected_flagKeptInColumns() {
+        CompactTaskList compact = new CompactTaskList();
+        compact.asLoadTarget().add(new Todo("read book", false));
+
+        WeakReference<Task> view = new WeakReference<>(compact.get(0));
+        compact.setDone(0, true);
+        awaitCollected(view);
+        assertEquals("[T][X] read book", compact.peek(0).toString());
+    }
+
+    @Test
+    public void get_viewNoLongerHeld_isCollected() {
+        CompactTaskList compact = new CompactTaskList();
+        List<Task> target = compact.asLoadTarget();
+        for (int i = 0; i < 1000; i++) {
+            target.add(new Todo("task " + i, false));
+        }
+        WeakReference<Task> view = new WeakReference<>(compact.get(500));
+        for (Task t : compact) {
+            assertNotNull(t);
+        }
+        awaitCollected(view);
+        assertEquals("[T][ ] task 500", compact.peek(500).toString());
+    }
+
+    static void awaitCollected(WeakReference<?> ref) {
+        for (int i = 0; i < 50 && ref.get() != null; i++) {
+            System.gc();
+            Thread.onSpinWait();
+        }
+        assertNull(ref.get(), "view is still reachable");
+    }
+
+    @Test
+    public void remove_manyTasks_keepsRemainingDescriptions() {
+        CompactTaskList compact = new CompactTaskList();
+        List<Task> target = compact.asLoadTarget();
+        for (int i = 0; i < 2000; i++) {
+            target.add(new Todo("task with a fairly long description " + i, false));
+        }
+        for (int i = 0; i < 1500; i++) {
+            compact.remove(0);
+        }
+        assertEquals(500, compact.size());
+        assertEquals("[T][ ] task with a fairly long description 1500", compact.peek(0).toString());
+        assertEquals("[T][ ] task with a fairly long description 1999", compact.peek(499).toString());
+    }
+
+    @Test
+    public void add_timeWithSeconds_keepsTaskObject() {
+        CompactTaskList compact = new CompactTaskList();
+        Deadline precise = new Deadline("precise", false, START.withSecond(30));
+        compact.asLoadTarget().add(precise);
+        assertSame(precise, compact.peek(0));
+    }
+
+    @Test
+    public void lineAt_afterSetDone_rendersNewLineOnce() {
+        CompactTaskList compact = new CompactTaskList();
+        compact.asLoadTarget().add(new Deadline("submit", false, START));
+        String first = compact.lineAt(0);
+        assertSame(first, compact.lineAt(0));
+
+        compact.setDone(0, true);
+
+        assertEquals(compact.peek(0).toString(), compact.lineAt(0));
+        assertSame(compact.lineAt(0), compact.lineAt(0));
+        compact.remove(0);
+        compact.add(new Todo("next", false));
+        assertEquals("[T][ ] next", compact.lineAt(0));
+    }
+}
@@ -0,0 +1,166 @@
+package locky.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import locky.error.LockyException;
+import locky.utils.Storage;
+
+public class ConcurrentTaskListTest {
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int OPERATIONS = 400;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void manyThreads_readsSeeConsistentListAndFileMatches() throws Exception {
+        Storage storage = new Storage(dir.resolve("locky.txt").toString());
+        ConcurrentTaskList list = new ConcurrentTaskList(storage);
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger deleted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + READERS);
+        List<Future<?>> runs = new ArrayList<>();
+
+        for (int w = 0; w < WRITERS; w++) {
+            long seed = w;
+            runs.add(pool.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int i = 0; i < OPERATIONS; i++) {
+                    list.addTodo("task " + seed + "-" + i);
+                    added.incrementAndGet();
+                    try {
+                        list.mark(1 + random.nextInt(list.getSize()));
+                        if (i % 3 == 0) {
+                            list.delete(1 + random.nextInt(list.getSize()));
+                            deleted.incrementAndGet();
+                        }
+                    } catch (LockyException raced) {
+                        // another writer deleted that position in between
+                    }
+                }
+                return null;
+            }));
+        }
+        for (int r = 0; r < READERS; r++) {
+            runs.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS; i++) {
+                    assertNumberedInOrder(list.getListString());
+                    assertNumberedInOrder(list.formatFindResults("task"));
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> run : runs) {
+            run.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(added.get() - deleted.get(), list.getSize());
+        assertEquals(list.getListString(), new TaskList(storage).getListString());
+    }
+
+    @Test
+    public void batch_otherThreadMutation_waitsForCommitAndStaysOutOfBatch() throws Exception {
+        Storage storage = new Storage(dir.resolve("locky.txt").toString());
+        ConcurrentTaskList list = new ConcurrentTaskList(storage);
+        list.beginBatch();
+        list.addTodo("in batch");
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+
+        Future<?> other = pool.submit(() -> {
+            list.addTodo("outside");
+            return null;
+        });
+        Thread.sleep(100);
+        assertFalse(other.isDone());
+        assertEquals(1, list.rollbackBatch());
+
+        other.get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+        assertEquals("1. [T][ ] outside", list.getListString().trim());
+        assertEquals(list.getListString(), new TaskList(storage).getListString());
+    }
+
+    @Test
+    public void batch_otherThreadCommit_throws() throws Exception {
+        ConcurrentTaskList list = new ConcurrentTaskList(new Storage(dir.resolve("locky.txt").toString()));
+        list.beginBatch();
+        list.addTodo("in batch");
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+
+        Future<?> other = pool.submit(() -> assertThrows(LockyException.class, list::commitBatch));
+        other.get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(1, list.commitBatch());
+    }
+
+    @Test
+    public void rollbackBatch_undoStepFails_stillEndsBatch() throws Exception {
+        Storage storage = new Storage(dir.resolve("locky.txt").toString()) {
+            @Override
+            public List<Task> loadLazily() {
+                List<Task> tasks = new ArrayList<>();
+                tasks.add(new Todo("cannot be undone", false) {
+                    @Override
+                    public void setUndone() {
+                        throw new IllegalStateException("stuck");
+                    }
+                });
+                tasks.add(new Todo("plain", false));
+                return tasks;
+            }
+        };
+        ConcurrentTaskList list = new ConcurrentTaskList(storage);
+        list.beginBatch();
+        list.mark(2);
+        list.mark(1);
+        list.addTodo("in batch");
+
+        assertThrows(IllegalStateException.class, list::rollbackBatch);
+        assertFalse(list.isInBatch());
+        assertEquals(2, list.getSize());
+        assertFalse(list.isTaskDone(2));
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        pool.submit(() -> {
+            list.addTodo("outside");
+            return null;
+        }).get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+        assertEquals(3, list.getSize());
+    }
+
+    private static void assertNumberedInOrder(String listing) {
+        if (listing.isEmpty() || listing.startsWith("No matching")) {
+            return;
+        }
+        String[] lines = listing.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            assertTrue(lines[i].startsWith((i + 1) + ". [T]"), lines[i]);
+        }
+    }
+}
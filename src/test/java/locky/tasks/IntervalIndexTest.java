@@ -0,0 +1,57 @@
+package locky.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class IntervalIndexTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Test
+    public void findOverlaps_randomEvents_matchesLinearScan() {
+        Random random = new Random(42);
+        IntervalIndex index = new IntervalIndex();
+        List<Event> events = new ArrayList<>();
+        List<Integer> live = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(10_000));
+            Event e = new Event("e" + i, false, start, start.plusMinutes(1 + random.nextInt(300)));
+            events.add(e);
+            live.add(i);
+            index.add(i, e);
+        }
+        for (int i = 0; i < 100; i++) {
+            index.remove(live.remove(random.nextInt(live.size())));
+        }
+
+        for (int q = 0; q < 200; q++) {
+            LocalDateTime from = BASE.plusMinutes(random.nextInt(10_000));
+            LocalDateTime to = from.plusMinutes(1 + random.nextInt(500));
+            List<Integer> expected = new ArrayList<>();
+            for (int id : live) {
+                if (events.get(id).isClashing(from, to)) {
+                    expected.add(id);
+                }
+            }
+            expected.sort(Comparator.comparing((Integer id) -> events.get(id).getStart()).thenComparing(id -> id));
+
+            assertArrayEquals(expected.stream().mapToLong(Integer::longValue).toArray(), index.findOverlaps(from, to));
+            assertEquals(expected.isEmpty() ? -1 : expected.get(0), index.findFirstOverlap(from, to));
+        }
+    }
+
+    @Test
+    public void findFirstOverlap_touchingEvents_doNotClash() {
+        IntervalIndex index = new IntervalIndex();
+        index.add(7, new Event("a", false, BASE, BASE.plusHours(1)));
+        assertEquals(-1, index.findFirstOverlap(BASE.plusHours(1), BASE.plusHours(2)));
+        assertEquals(7, index.findFirstOverlap(BASE.plusMinutes(59), BASE.plusHours(2)));
+    }
+}
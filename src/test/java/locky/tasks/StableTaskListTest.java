@@ -0,0 +1,111 @@
+package locky.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class StableTaskListTest {
+    private static List<Task> todos(int count) {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tasks.add(new Todo("task " + i, false));
+        }
+        return tasks;
+    }
+
+    @Test
+    public void remove_fromFront_keepsIdsAndOrder() {
+        StableTaskList list = new StableTaskList(todos(1000));
+        long idOfLast = list.idAt(999);
+        for (int i = 0; i < 900; i++) {
+            list.remove(0);
+        }
+        assertEquals(100, list.size());
+        assertEquals("[T][ ] task 900", list.get(0).toString());
+        assertEquals(idOfLast, list.idAt(99));
+        assertEquals(99, list.indexOf(idOfLast));
+    }
+
+    @Test
+    public void add_atDeletedPosition_revivesSameId() {
+        StableTaskList list = new StableTaskList(todos(5));
+        long id = list.idAt(2);
+        Task removed = list.remove(2);
+        assertEquals(-1, list.indexOf(id));
+
+        list.add(2, removed);
+        assertSame(removed, list.get(2));
+        assertEquals(id, list.idAt(2));
+    }
+
+    @Test
+    public void add_inMiddleWhileCompactionHeld_keepsTombstonesRevivable() {
+        StableTaskList list = new StableTaskList(todos(5));
+        list.holdCompaction(true);
+        long idOf1 = list.idAt(1);
+        long idOf3 = list.idAt(3);
+        list.remove(3);
+        list.remove(1);
+
+        list.add(1, new Todo("inserted", false));
+        list.revive(idOf3);
+        list.revive(idOf1);
+        list.holdCompaction(false);
+
+        List<String> seen = new ArrayList<>();
+        for (Task t : list) {
+            seen.add(t.getDescription());
+        }
+        assertEquals(List.of("task 0", "task 1", "inserted", "task 2", "task 3", "task 4"), seen);
+        assertEquals(1, list.indexOf(idOf1));
+        assertEquals(4, list.indexOf(idOf3));
+    }
+
+    @Test
+    public void iterator_afterDeletes_skipsTombstones() {
+        StableTaskList list = new StableTaskList(todos(10));
+        list.remove(9);
+        list.remove(0);
+        list.remove(3);
+        List<String> seen = new ArrayList<>();
+        for (Task t : list) {
+            seen.add(t.getDescription());
+        }
+        assertEquals(List.of("task 1", "task 2", "task 3", "task 5", "task 6", "task 7", "task 8"), seen);
+    }
+
+    @Test
+    public void indexOf_afterMiddleInsertAndDeletes_findsEveryTask() {
+        StableTaskList list = new StableTaskList(todos(300));
+        list.add(150, new Todo("inserted", false));
+        list.add(10, new Todo("inserted early", false));
+        for (int i = 0; i < 200; i++) {
+            list.remove(i % 3 == 0 ? 0 : list.size() / 2);
+        }
+        list.add(list.size(), new Todo("appended", false));
+
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(i, list.indexOf(list.idAt(i)));
+        }
+    }
+
+    @Test
+    public void remove_pastCompactionThreshold_keepsOrderAndIds() {
+        CompactTaskList compact = new CompactTaskList();
+        compact.addAll(todos(200));
+        for (StableTaskList list : List.of(new StableTaskList(todos(200)), new StableTaskList(compact))) {
+            long idOf100 = list.idAt(100);
+            for (int i = 0; i < 150; i++) {
+                list.remove(i % 2 == 0 ? 0 : list.size() - 1);
+            }
+            assertEquals(50, list.size());
+            assertEquals("task 75", list.get(0).getDescription());
+            assertEquals("task 124", list.get(49).getDescription());
+            assertEquals(100 - 75, list.indexOf(idOf100));
+        }
+    }
+}
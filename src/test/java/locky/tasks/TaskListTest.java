@@ -0,0 +1,408 @@
+package locky.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import locky.commands.DeleteCommand;
+import locky.commands.MarkCommand;
+import locky.commands.UnmarkCommand;
+import locky.utils.Storage;
+
+public class TaskListTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void rollbackBatch_afterMixedChanges_restoresListAndFile() throws Exception {
+        Storage storage = new Storage(dir.resolve("locky.txt").toString());
+        TaskList list = new TaskList(storage);
+        list.addTodo("keep");
+        list.addEvent("sync", LocalDateTime.of(2025, 1, 1, 9, 0), LocalDateTime.of(2025, 1, 1, 10, 0));
+        String before = list.getListString();
+
+        list.beginBatch();
+        list.addTodo("temp");
+        list.mark(1);
+        list.delete(2);
+        list.rollbackBatch();
+
+        assertFalse(list.isInBatch());
+        assertEquals(before, list.getListString());
+        assertEquals(2, storage.load().size());
+        assertTrue(list.formatOverlapResults(LocalDateTime.of(2025, 1, 1, 9, 30),
+                LocalDateTime.of(2025, 1, 1, 9, 45)).contains("sync"));
+    }
+
+    @Test
+    public void commitBatch_afterChanges_savesOnce() throws Exception {
+        int[] saves = {0};
+        Storage storage = new Storage(dir.resolve("locky.txt").toString()) {
+            @Override
+            public void save(List<Task> tasks) throws IOException {
+                saves[0]++;
+                super.save(tasks);
+            }
+        };
+        TaskList list = new TaskList(storage);
+        list.beginBatch();
+        for (int i = 0; i < 50; i++) {
+            list.addTodo("task " + i);
+        }
+        list.mark(3);
+        assertEquals(51, list.commitBatch());
+
+        assertEquals(1, saves[0]);
+        assertEquals(50, storage.load().size());
+    }
+
+    @Test
+    public void commitBatch_saveFails_keepsBatchOpenForRollback() throws Exception {
+        boolean[] isFailing = {true};
+        Storage storage = new Storage(dir.resolve("locky.txt").toString()) {
+            @Override
+            public void save(List<Task> tasks) throws IOException {
+                if (isFailing[0]) {
+                    throw new IOException("disk full");
+                }
+                super.save(tasks);
+            }
+        };
+        TaskList list = new TaskList(storage);
+        list.beginBatch();
+        list.addTodo("pending");
+
+        assertThrows(IOException.class, list::commitBatch);
+        assertTrue(list.isInBatch());
+        isFailing[0] = false;
+        assertEquals(1, list.commitBatch());
+        assertEquals(1, storage.load().size());
+    }
+
+    @Test
+    public void rollbackBatch_afterDeletesInDescendingOrder_restoresAll() throws Exception {
+        Storage storage = new Storage(dir.resolve("locky.txt").toString());
+        TaskList list = new TaskList(storage);
+        for (int i = 1; i <= 5; i++) {
+            list.addTodo("task " + i);
+        }
+        String before = list.getListString();
+
+        list.beginBatch();
+        list.mark(2);
+        list.delete(3);
+        list.delete(2);
+        list.delete(1);
+        assertEquals(4, list.rollbackBatch());
+
+        assertFalse(list.isInBatch());
+        assertEquals(before, list.getListString());
+        assertFalse(list.isTaskDone(2));
+        list.delete(3);
+        assertEquals("1. [T][ ] task 1\n2. [T][ ] task 2\n3. [T][ ] task 4\n4. [T][ ] task 5\n",
+                list.getListString());
+    }
+
+    @Test
+    public void rollbackBatch_afterMarkAndDeletingEveryTask_restoresAll() throws Exception {
+        Storage storage = new Storage(dir.resolve("locky.txt").toString());
+        TaskList list = new TaskList(storage);
+        int[] all = new int[100];
+        for (int i = 0; i < all.length; i++) {
+            list.addTodo("task " + (i + 1));
+            all[i] = i + 1;
+        }
+        String before = list.getListString();
+
+        list.beginBatch();
+        list.mark(1);
+        list.deleteAll(all);
+        assertEquals(101, list.rollbackBatch());
+
+        assertFalse(list.isInBatch());
+        assertEquals(before, list.getListString());
+        assertEquals(100, storage.load().size());
+    }
+
+    @Test
+    public void deleteAll_saveFails_restoresEveryTask() throws Exception {
+        boolean[] isFailing = {false};
+        Storage storage = new Storage(dir.resolve("locky.txt").toString()) {
+            @Override
+            public void save(List<Task> tasks) throws IOException {
+                if (isFailing[0]) {
+                    throw new IOException("disk full");
+                }
+                super.save(tasks);
+            }
+        };
+        TaskList list = new TaskList(storage);
+        int[] all = new int[100];
+        for (int i = 0; i < all.length; i++) {
+            list.addTodo("task " + (i + 1));
+            all[i] = i + 1;
+        }
+        String before = list.getListString();
+
+        isFailing[0] = true;
+        assertThrows(IOException.class, () -> list.deleteAll(all));
+
+        assertFalse(list.isInBatch());
+        assertEquals(before, list.getListString());
+        assertEquals(100, list.getId(100) - list.getId(1) + 1);
+    }
+
+    @Test
+    public void deleteById_afterEarlierDelete_removesSameTask() throws Exception {
+        TaskList list = new TaskList(new Storage(dir.resolve("locky.txt").toString()));
+        list.addTodo("first");
+        list.addTodo("second");
+        list.addTodo("third");
+        long id = list.getId(3);
+
+        list.delete(1);
+        assertEquals("third", list.deleteById(id).getDescription());
+        assertEquals("1. [T][ ] second\n", list.getListString());
+    }
+
+    @Test
+    public void deleteAll_rangeOfTasks_savesOnceAndKeepsRest() throws Exception {
+        int[] saves = {0};
+        Storage storage = new Storage(dir.resolve("locky.txt").toString()) {
+            @Override
+            public void save(List<Task> tasks) throws IOException {
+                saves[0]++;
+                super.save(tasks);
+            }
+        };
+        TaskList list = new TaskList(storage);
+        list.beginBatch();
+        for (int i = 1; i <= 100; i++) {
+            list.addTodo("task " + i);
+        }
+        list.commitBatch();
+
+        int[] doomed = new int[90];
+        for (int i = 0; i < doomed.length; i++) {
+            doomed[i] = i + 1;
+        }
+        assertEquals(90, list.deleteAll(doomed).size());
+
+        assertEquals(2, saves[0]);
+        assertFalse(list.isInBatch());
+        assertEquals(10, storage.load().size());
+        assertTrue(list.getListString().startsWith("1. [T][ ] task 91\n"));
+    }
+
+    @Test
+    public void writeList_pageAfterMark_rendersChangedLine() throws Exception {
+        TaskList list = new TaskList(new Storage(dir.resolve("locky.txt").toString()));
+        for (int i = 1; i <= 5; i++) {
+            list.addTodo("task " + i);
+        }
+        StringBuilder before = new StringBuilder();
+        list.writeList(before, 2, 2);
+        assertEquals("3. [T][ ] task 3\n4. [T][ ] task 4\n", before.toString());
+
+        list.mark(3);
+        StringBuilder after = new StringBuilder();
+        list.writeList(after, 2, 10);
+        assertEquals("3. [T][X] task 3\n4. [T][ ] task 4\n5. [T][ ] task 5\n", after.toString());
+    }
+
+    @Test
+    public void mark_compactStore_savesFlagWithoutPinningViews() throws Exception {
+        Path file = dir.resolve("locky.txt");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            text.append("T|0|task ").append(i).append('\n');
+        }
+        Files.writeString(file, text);
+        String old = System.getProperty("locky.compact");
+        System.setProperty("locky.compact", "true");
+        try {
+            Storage storage = new Storage(file.toString());
+            TaskList list = new TaskList(storage);
+            WeakReference<Task> view = new WeakReference<>(list.getTask(5000));
+
+            list.mark(1);
+            list.beginBatch();
+            list.mark(2);
+            list.rollbackBatch();
+            CompactTaskListTest.awaitCollected(view);
+
+            assertEquals("[T][X] task 0", list.getTask(1).toString());
+            assertEquals("[T][ ] task 1", list.getTask(2).toString());
+            assertTrue(storage.load().get(0).getDone());
+        } finally {
+            if (old == null) {
+                System.clearProperty("locky.compact");
+            } else {
+                System.setProperty("locky.compact", old);
+            }
+        }
+    }
+
+    @Test
+    public void find_compactStore_indexesDoNotPinViews() throws Exception {
+        Path file = dir.resolve("locky.txt");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            text.append("D|0|task ").append(i).append("|2025-03-14 1200\n");
+        }
+        Files.writeString(file, text);
+        String old = System.getProperty("locky.compact");
+        System.setProperty("locky.compact", "true");
+        try {
+            TaskList list = new TaskList(new Storage(file.toString()));
+            WeakReference<Task> view = new WeakReference<>(list.getTask(5000));
+
+            assertTrue(list.formatFindResults("task 4999").startsWith("1. [D][ ] task 4999 by: "));
+            assertEquals(10_000, list.formatDueBefore(LocalDateTime.of(2025, 3, 15, 0, 0)).split("\n").length);
+            list.addEvent("sync", LocalDateTime.of(2025, 3, 14, 9, 0), LocalDateTime.of(2025, 3, 14, 10, 0));
+            list.writeList(new StringBuilder(), 0, list.getSize());
+            CompactTaskListTest.awaitCollected(view);
+
+            assertEquals(List.of(5000), Arrays.stream(list.findIndices("task 4999")).boxed().toList());
+            list.delete(1);
+            assertEquals(4999, list.findIndices("task 4999")[0]);
+        } finally {
+            if (old == null) {
+                System.clearProperty("locky.compact");
+            } else {
+                System.setProperty("locky.compact", old);
+            }
+        }
+    }
+
+    private TaskList scheduleList() throws Exception {
+        LocalDateTime noon = LocalDateTime.of(2025, 3, 14, 12, 0);
+        TaskList list = new TaskList(new Storage(dir.resolve("locky.txt").toString()));
+        list.addTodo("no time");
+        list.addDeadline("report", noon);
+        list.addEvent("lunch", noon, noon.plusHours(1));
+        list.addDeadline("later", noon.plusHours(2));
+        list.addEvent("morning sync", noon.minusHours(3), noon.minusHours(2));
+        return list;
+    }
+
+    private static List<String> descriptionsOf(String listing) {
+        return Arrays.stream(listing.split("\n"))
+                .map(line -> line.replaceFirst("^\\d+\\. \\[.\\]\\[.\\] ", "").split(" (by|from): ")[0])
+                .toList();
+    }
+
+    @Test
+    public void formatDueBefore_boundEqualToDeadline_excludesIt() throws Exception {
+        TaskList list = scheduleList();
+        LocalDateTime noon = LocalDateTime.of(2025, 3, 14, 12, 0);
+
+        assertEquals(List.of("morning sync"), descriptionsOf(list.formatDueBefore(noon)));
+        assertEquals(List.of("morning sync", "report", "lunch"),
+                descriptionsOf(list.formatDueBefore(noon.plusMinutes(1))));
+        assertEquals("Nothing scheduled in that range.\n", list.formatDueBefore(noon.minusDays(1)));
+    }
+
+    @Test
+    public void formatBetween_inclusiveBounds_placesEventsByStart() throws Exception {
+        TaskList list = scheduleList();
+        LocalDateTime noon = LocalDateTime.of(2025, 3, 14, 12, 0);
+
+        assertEquals(List.of("report", "lunch", "later"),
+                descriptionsOf(list.formatBetween(noon, noon.plusHours(2))));
+        assertEquals(List.of("report", "lunch"), descriptionsOf(list.formatBetween(noon, noon)));
+    }
+
+    @Test
+    public void formatNext_equalTimes_keepListOrder() throws Exception {
+        TaskList list = scheduleList();
+        LocalDateTime noon = LocalDateTime.of(2025, 3, 14, 12, 0);
+
+        assertEquals(List.of("report", "lunch"), descriptionsOf(list.formatNext(noon, 2)));
+        assertEquals(List.of("report", "lunch", "later"), descriptionsOf(list.formatNext(noon, 10)));
+    }
+
+    @Test
+    public void formatBetween_afterDeleteAndRollback_followsList() throws Exception {
+        TaskList list = scheduleList();
+        LocalDateTime noon = LocalDateTime.of(2025, 3, 14, 12, 0);
+        list.formatBetween(noon, noon.plusHours(2)); // build the index first
+
+        list.delete(2);
+        assertEquals(List.of("lunch", "later"), descriptionsOf(list.formatBetween(noon, noon.plusHours(2))));
+
+        list.beginBatch();
+        list.delete(2);
+        list.addDeadline("temp", noon.plusHours(1));
+        assertEquals(List.of("temp", "later"), descriptionsOf(list.formatBetween(noon, noon.plusHours(2))));
+        list.rollbackBatch();
+
+        assertEquals(List.of("lunch", "later"), descriptionsOf(list.formatBetween(noon, noon.plusHours(2))));
+        assertEquals(List.of("morning sync", "lunch"), descriptionsOf(list.formatDueBefore(noon.plusHours(1))));
+    }
+
+    private TaskList bookList(Storage storage) throws Exception {
+        TaskList list = new TaskList(storage);
+        list.addTodo("read book");
+        list.addTodo("buy milk");
+        list.addDeadline("return book", LocalDateTime.of(2025, 3, 14, 12, 0));
+        list.addTodo("call mum");
+        list.addTodo("book flights");
+        return list;
+    }
+
+    @Test
+    public void markAndUnmark_findSelection_changeOnlyMatches() throws Exception {
+        Storage storage = new Storage(dir.resolve("locky.txt").toString());
+        TaskList list = bookList(storage);
+
+        String reply = new MarkCommand("find:book").execute(list);
+
+        assertTrue(reply.contains("3 task(s)"));
+        assertTrue(list.isTaskDone(1) && list.isTaskDone(3) && list.isTaskDone(5));
+        assertFalse(list.isTaskDone(2) || list.isTaskDone(4));
+        assertEquals(3, storage.load().stream().filter(Task::getDone).count());
+
+        new UnmarkCommand("find:return").execute(list);
+        assertFalse(list.isTaskDone(3));
+        assertTrue(list.isTaskDone(1) && list.isTaskDone(5));
+        assertFalse(storage.load().get(2).getDone());
+    }
+
+    @Test
+    public void delete_findSelection_thenDeleteByIdAfterRenumbering() throws Exception {
+        Storage storage = new Storage(dir.resolve("locky.txt").toString());
+        TaskList list = bookList(storage);
+        long callMum = list.getId(4);
+        long buyMilk = list.getId(2);
+
+        new DeleteCommand("find:book").execute(list);
+
+        assertEquals("1. [T][ ] buy milk\n2. [T][ ] call mum\n", list.getListString());
+        assertEquals("call mum", list.deleteById(callMum).getDescription());
+        assertEquals("1. [T][ ] buy milk\n", list.getListString());
+        assertEquals(1, list.findIndices("milk")[0]);
+        assertEquals(buyMilk, list.getId(1));
+        assertEquals(1, storage.load().size());
+    }
+
+    @Test
+    public void delete_findSelectionWithoutMatches_changesNothing() throws Exception {
+        TaskList list = bookList(new Storage(dir.resolve("locky.txt").toString()));
+
+        assertEquals("No tasks match \"plane\", so nothing changed.\n", new DeleteCommand("find:plane").execute(list));
+        assertEquals(5, list.getSize());
+    }
+}
@@ -0,0 +1,85 @@
+package locky.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class TextIndexTest {
+    private final List<Task> tasks = List.of(
+            new Todo("buy milk", false),
+            new Todo("Buy   bread and MILK", false),
+            new Todo("milkshake", false),
+            new Todo("read book", false),
+            new Todo("bread", false));
+
+    // each task's ID is its position
+    private static TextIndex indexOf(List<Task> list, int parallelThreshold) {
+        TextIndex index = new TextIndex(id -> list.get((int) id), parallelThreshold);
+        for (int i = 0; i < list.size(); i++) {
+            index.add(i, list.get(i));
+        }
+        return index;
+    }
+
+    private List<String> descriptions(long[] ids) {
+        List<String> out = new ArrayList<>();
+        for (long id : ids) {
+            out.add(tasks.get((int) id).getDescription());
+        }
+        return out;
+    }
+
+    @Test
+    public void search_plainQueries_matchSubstringScan() {
+        TextIndex index = indexOf(tasks, TextIndex.PARALLEL_THRESHOLD);
+        for (String query : new String[] {"milk", "ilk", "READ", "buy milk", "bread and", "k b", "xyz"}) {
+            List<String> expected = new ArrayList<>();
+            for (Task t : tasks) {
+                if (t.isMatching(query)) {
+                    expected.add(t.getDescription());
+                }
+            }
+            assertEquals(expected, descriptions(index.search(query)), query);
+        }
+    }
+
+    @Test
+    public void search_operatorsAndPrefix_combineResults() {
+        TextIndex index = indexOf(tasks, TextIndex.PARALLEL_THRESHOLD);
+        assertEquals(List.of("Buy   bread and MILK"), descriptions(index.search("bread AND milk")));
+        assertEquals(List.of("buy milk", "Buy   bread and MILK", "read book"),
+                descriptions(index.search("buy OR book")));
+        assertEquals(List.of("Buy   bread and MILK", "bread"), descriptions(index.search("bre*")));
+        assertEquals(List.of(), descriptions(index.search("ead*")));
+    }
+
+    @Test
+    public void remove_task_noLongerFound() {
+        TextIndex index = indexOf(tasks, TextIndex.PARALLEL_THRESHOLD);
+        index.remove(0, tasks.get(0));
+        assertEquals(List.of("Buy   bread and MILK", "milkshake"), descriptions(index.search("milk")));
+    }
+
+    @Test
+    public void search_parallelAboveThreshold_matchesSequential() {
+        String[] words = {"milk", "bread", "report", "sync", "call", "mum", "buy", "read", "book", "gym"};
+        Random random = new Random(42);
+        List<Task> many = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            many.add(new Todo(words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]
+                    + " item" + i, false));
+        }
+        TextIndex sequential = indexOf(many, Integer.MAX_VALUE);
+        TextIndex parallel = indexOf(many, 1);
+
+        for (String query : new String[] {"milk", "ea", "buy milk", "item1", "item2*", "read AND book",
+                "gym OR sync call", "xyz"}) {
+            assertArrayEquals(sequential.search(query), parallel.search(query), query);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package locky.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+public class TimeIndexTest {
+    private static final LocalDateTime NOON = LocalDateTime.of(2025, 3, 14, 12, 0);
+
+    private static Deadline due(String desc, LocalDateTime by) {
+        return new Deadline(desc, false, by);
+    }
+
+    private static Event event(String desc, LocalDateTime start) {
+        return new Event(desc, false, start, start.plusHours(2));
+    }
+
+    @Test
+    public void before_timeEqualToBound_isExcluded() {
+        TimeIndex index = new TimeIndex();
+        index.add(1, due("at noon", NOON));
+        index.add(2, due("early", NOON.minusMinutes(1)));
+
+        assertArrayEquals(new long[] {2}, index.before(NOON));
+    }
+
+    @Test
+    public void between_bothBoundsInclusive_eventsByStart() {
+        TimeIndex index = new TimeIndex();
+        index.add(1, due("to", NOON.plusHours(1)));
+        index.add(2, event("inside", NOON.plusMinutes(30)));
+        index.add(3, due("from", NOON));
+        index.add(4, due("after", NOON.plusHours(1).plusMinutes(1)));
+        // starts before the range, so it is left out even though it ends inside it
+        index.add(5, event("overlapping", NOON.minusHours(1)));
+        index.add(6, new Todo("no time", false));
+
+        assertArrayEquals(new long[] {3, 2, 1}, index.between(NOON, NOON.plusHours(1)));
+    }
+
+    @Test
+    public void next_equalTimes_keepInsertionOrderAndLimit() {
+        TimeIndex index = new TimeIndex();
+        index.add(1, due("past", NOON.minusDays(1)));
+        index.add(2, due("first", NOON));
+        index.add(3, event("second", NOON));
+        index.add(4, due("third", NOON));
+
+        assertArrayEquals(new long[] {2, 3}, index.next(NOON, 2));
+        assertArrayEquals(new long[] {2, 3, 4}, index.next(NOON, 10));
+    }
+
+    @Test
+    public void remove_equalLookingTask_removesOnlyThatId() {
+        TimeIndex index = new TimeIndex();
+        Deadline a = due("same", NOON);
+        Deadline b = due("same", NOON);
+        index.add(1, a);
+        index.add(2, b);
+
+        index.remove(2, b);
+        index.remove(3, due("never added", NOON.plusDays(1)));
+
+        assertArrayEquals(new long[] {1}, index.between(NOON, NOON));
+        index.remove(1, a);
+        assertArrayEquals(new long[0], index.next(NOON.minusYears(1), 5));
+    }
+}
@@ -0,0 +1,109 @@
+package locky.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import locky.tasks.Task;
+import locky.tasks.Todo;
+
+class AsyncStorageTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void flush_afterBurst_coalescesIntoFewWrites() throws Exception {
+        AtomicInteger saves = new AtomicInteger();
+        Storage inner = new Storage(dir.resolve("locky.txt").toString()) {
+            @Override
+            public void save(List<Task> list) throws IOException {
+                saves.incrementAndGet();
+                super.save(list);
+            }
+        };
+        AsyncStorage s = new AsyncStorage(inner, 1_000);
+        ArrayList<Task> list = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Task t = new Todo("task " + i, false);
+            list.add(t);
+            s.saveAdded(list, t);
+        }
+        s.flush();
+
+        assertTrue(saves.get() <= 2, "burst should collapse, got " + saves.get() + " writes");
+        assertEquals(100, inner.load().size());
+        s.close();
+    }
+
+    @Test
+    void flush_journaledDelegate_appendsSingleChanges() throws Exception {
+        AtomicInteger saves = new AtomicInteger();
+        Path path = dir.resolve("locky.txt");
+        JournaledStorage inner = new JournaledStorage(path.toString()) {
+            @Override
+            public synchronized void save(List<Task> list) throws IOException {
+                saves.incrementAndGet();
+                super.save(list);
+            }
+        };
+        AsyncStorage s = new AsyncStorage(inner, 0);
+        ArrayList<Task> list = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Task t = new Todo("task " + i, false);
+            list.add(t);
+            s.saveAdded(list, t);
+            s.flush();
+        }
+        list.get(1).setDone();
+        s.saveUpdated(list, 1);
+        list.remove(0);
+        s.saveDeleted(list, 0);
+        s.close();
+
+        assertEquals(1, saves.get(), "only the first change should write a snapshot");
+        assertTrue(Files.exists(dir.resolve("locky.txt.journal")));
+        ArrayList<Task> loaded = new JournaledStorage(path.toString()).load();
+        assertEquals("[[T][X] task 1, [T][ ] task 2]", loaded.toString());
+    }
+
+    @Test
+    void flush_taskChangedAfterRecording_writesRecordedState() throws Exception {
+        Storage inner = new Storage(dir.resolve("locky.txt").toString());
+        AsyncStorage s = new AsyncStorage(inner, 1_000);
+        ArrayList<Task> list = new ArrayList<>();
+        list.add(new Todo("read", false));
+        s.save(list);
+        list.get(0).setDone();
+        s.saveUpdated(list, 0);
+        list.get(0).setUndone();
+        list.add(new Todo("not recorded", false));
+        s.flush();
+
+        ArrayList<Task> loaded = inner.load();
+        assertEquals(1, loaded.size());
+        assertTrue(loaded.get(0).getDone());
+        s.close();
+    }
+
+    @Test
+    void flush_afterClose_failsFast() throws Exception {
+        AsyncStorage s = new AsyncStorage(new Storage(dir.resolve("locky.txt").toString()), 1_000);
+        s.close();
+        s.close();
+
+        assertThrows(IOException.class, s::flush);
+        assertThrows(IOException.class, () -> s.save(new ArrayList<>()));
+        assertFalse(Files.exists(dir.resolve("locky.txt")));
+    }
+}
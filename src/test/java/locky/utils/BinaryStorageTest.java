@@ -0,0 +1,177 @@
+package locky.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import locky.tasks.Deadline;
+import locky.tasks.Event;
+import locky.tasks.Task;
+import locky.tasks.Todo;
+
+class BinaryStorageTest {
+    @TempDir
+    Path dir;
+
+    private ArrayList<Task> sample() {
+        ArrayList<Task> list = new ArrayList<>();
+        list.add(new Todo("fish band prac", true));
+        list.add(new Deadline("submit report", false, LocalDateTime.of(2019, 12, 2, 18, 0, 42)));
+        list.add(new Event("team sync", false, LocalDateTime.of(1969, 7, 20, 9, 0),
+                LocalDateTime.of(1969, 7, 20, 10, 0)));
+        return list;
+    }
+
+    @Test
+    void save_thenLoad_keepsSecondsAndPreEpochTimes() throws Exception {
+        BinaryStorage s = new BinaryStorage(dir.resolve("locky.bin").toString());
+        ArrayList<Task> list = sample();
+        s.save(list);
+
+        assertTrue(BinaryStorage.isBinaryFile(dir.resolve("locky.bin").toFile()));
+        ArrayList<Task> loaded = s.load();
+        assertEquals(3, loaded.size());
+        assertEquals(((Deadline) list.get(1)).getDeadline(), ((Deadline) loaded.get(1)).getDeadline());
+        assertEquals(((Event) list.get(2)).getStart(), ((Event) loaded.get(2)).getStart());
+        assertTrue(loaded.get(0).getDone());
+    }
+
+    @Test
+    void save_thenLoad_keepsFractionsOfASecond() throws Exception {
+        BinaryStorage s = new BinaryStorage(dir.resolve("locky.bin").toString());
+        LocalDateTime start = LocalDateTime.of(1969, 12, 31, 23, 59, 0, 123_456_789);
+        ArrayList<Task> list = new ArrayList<>();
+        list.add(new Event("launch", false, start, start.plusNanos(1)));
+        s.save(list);
+
+        Event loaded = (Event) s.load().get(0);
+        assertEquals(start, loaded.getStart());
+        assertEquals(start.plusNanos(1), loaded.getEnd());
+    }
+
+    @Test
+    void copyTo_textAndBack_preservesTasks() throws Exception {
+        Storage text = new Storage(dir.resolve("locky.txt").toString());
+        BinaryStorage binary = new BinaryStorage(dir.resolve("locky.bin").toString());
+        Storage textAgain = new Storage(dir.resolve("again.txt").toString());
+        text.save(sample());
+
+        text.copyTo(binary);
+        binary.copyTo(textAgain);
+
+        assertEquals(text.load().toString(), textAgain.load().toString());
+    }
+
+    /**
+     * Writes the header, the given count and task bytes, and a correct CRC,
+     * so each test can break exactly one thing.
+     */
+    private Path writeRaw(int version, long count, byte[] tasks) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(BinaryStorage.MAGIC);
+        out.write(version);
+        BinaryStorage.writeVarLong(out, count);
+        out.write(tasks);
+        CRC32 crc = new CRC32();
+        crc.update(out.toByteArray());
+        int value = (int) crc.getValue();
+        out.write(new byte[] {(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value});
+        Path path = dir.resolve("locky.bin");
+        Files.write(path, out.toByteArray());
+        return path;
+    }
+
+    private static byte[] task(int tag, long length, String description, long... times) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(tag);
+        BinaryStorage.writeVarLong(out, length);
+        out.write(description.getBytes(StandardCharsets.UTF_8));
+        for (long time : times) {
+            BinaryStorage.writeVarLong(out, time);
+        }
+        return out.toByteArray();
+    }
+
+    private void assertQuarantined(Path path) throws IOException {
+        byte[] damaged = Files.readAllBytes(path);
+        BinaryStorage s = new BinaryStorage(path.toString());
+
+        assertThrows(IOException.class, s::load);
+        Path corrupt = dir.resolve("locky.bin.corrupt");
+        assertFalse(Files.exists(path));
+        assertTrue(Arrays.equals(damaged, Files.readAllBytes(corrupt)));
+
+        s.save(sample());
+        assertTrue(Arrays.equals(damaged, Files.readAllBytes(corrupt)));
+    }
+
+    @Test
+    void load_validRawFile_decodes() throws Exception {
+        Path path = writeRaw(BinaryStorage.VERSION, 1, task(0, 4, "read"));
+
+        ArrayList<Task> loaded = new BinaryStorage(path.toString()).load();
+
+        assertEquals(1, loaded.size());
+        assertEquals("read", loaded.get(0).getDescription());
+    }
+
+    @Test
+    void load_unknownVersion_quarantinesFile() throws Exception {
+        assertQuarantined(writeRaw(BinaryStorage.VERSION + 1, 1, task(0, 4, "read")));
+    }
+
+    @Test
+    void load_unknownTag_quarantinesFile() throws Exception {
+        assertQuarantined(writeRaw(BinaryStorage.VERSION, 1, task(3, 4, "read")));
+    }
+
+    @Test
+    void load_negativeLength_quarantinesFile() throws Exception {
+        assertQuarantined(writeRaw(BinaryStorage.VERSION, 1, task(0, 0xFFFFFFFFL, "read")));
+    }
+
+    @Test
+    void load_timeOutOfRange_quarantinesFile() throws Exception {
+        // zigzag of 2^50 minutes, far past LocalDateTime.MAX
+        assertQuarantined(writeRaw(BinaryStorage.VERSION, 1, task(1, 4, "read", 1L << 51)));
+    }
+
+    @Test
+    void load_eventEndingBeforeStart_quarantinesFile() throws Exception {
+        // zigzag 2 is one minute past the epoch, 0 the epoch itself
+        assertQuarantined(writeRaw(BinaryStorage.VERSION, 1, task(2, 4, "read", 2, 0)));
+    }
+
+    @Test
+    void load_truncated_quarantinesFile() throws Exception {
+        Path path = writeRaw(BinaryStorage.VERSION, 1, task(0, 4, "read"));
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 6));
+
+        assertQuarantined(path);
+    }
+
+    @Test
+    void load_checksumMismatch_quarantinesFile() throws Exception {
+        Path path = writeRaw(BinaryStorage.VERSION, 1, task(0, 4, "read"));
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(path, bytes);
+
+        assertQuarantined(path);
+    }
+}
@@ -0,0 +1,37 @@
+package locky.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import org.junit.jupiter.api.Test;
+
+public class DateTimeFormatTest {
+    @Test
+    public void parseStored_eachLayout_matchesFormatters() {
+        LocalDateTime t = LocalDateTime.of(2019, 12, 2, 18, 5);
+        assertEquals(t, DateTimeFormat.parseStored(DateTimeFormat.INPUT.format(t)));
+        assertEquals(t, DateTimeFormat.parseStored(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(t)));
+        assertEquals(t, DateTimeFormat.parseStored(DateTimeFormat.DISPLAY.format(t)));
+        assertNull(DateTimeFormat.parseStored("next tuesday"));
+    }
+
+    @Test
+    public void parseInput_dayPastMonthEnd_clampsLikeFormatter() {
+        assertEquals(LocalDateTime.parse("2019-02-30 1800", DateTimeFormat.INPUT),
+                DateTimeFormat.parseInput("2019-02-30 1800"));
+        assertThrows(DateTimeParseException.class, () -> DateTimeFormat.parseInput("2019-12-02T18:00"));
+    }
+
+    @Test
+    public void formatDisplay_midnightAndNoon_matchesFormatter() {
+        for (int hour : new int[] {0, 11, 12, 23}) {
+            LocalDateTime t = LocalDateTime.of(2024, 2, 29, hour, 7);
+            assertEquals(DateTimeFormat.DISPLAY.format(t), DateTimeFormat.formatDisplay(t));
+        }
+    }
+}
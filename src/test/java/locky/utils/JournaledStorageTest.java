@@ -0,0 +1,136 @@
+package locky.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import locky.tasks.Task;
+import locky.tasks.Todo;
+
+class JournaledStorageTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void load_afterJournaledMutations_replaysAll() throws Exception {
+        String path = dir.resolve("locky.txt").toString();
+        JournaledStorage s = new JournaledStorage(path, Long.MAX_VALUE);
+        ArrayList<Task> list = new ArrayList<>();
+        for (String d : new String[] {"a", "b", "c"}) {
+            Task t = new Todo(d, false);
+            list.add(t);
+            s.saveAdded(list, t);
+        }
+        list.get(2).setDone();
+        s.saveUpdated(list, 2);
+        list.remove(0);
+        s.saveDeleted(list, 0);
+
+        assertFalse(Files.exists(dir.resolve("locky.txt")), "no snapshot should be written");
+        ArrayList<Task> loaded = new JournaledStorage(path, Long.MAX_VALUE).load();
+        assertEquals(2, loaded.size());
+        assertEquals("b", loaded.get(0).getDescription());
+        assertEquals("c", loaded.get(1).getDescription());
+        assertTrue(loaded.get(1).getDone());
+    }
+
+    @Test
+    void saveAdded_pastThreshold_compactsIntoSnapshot() throws Exception {
+        String path = dir.resolve("locky.txt").toString();
+        JournaledStorage s = new JournaledStorage(path, 1);
+        ArrayList<Task> list = new ArrayList<>();
+        Task t = new Todo("fold me", false);
+        list.add(t);
+        s.saveAdded(list, t);
+
+        Path sealed = dir.resolve("locky.txt.journal.sealed");
+        s.flush();
+        assertFalse(Files.exists(sealed), "sealed journal should be folded away");
+        assertEquals(1, new Storage(path).load().size());
+        assertEquals(1, new JournaledStorage(path, 1).load().size());
+    }
+
+    @Test
+    void flush_afterFailedCompaction_reportsOnceAndSaveRecovers() throws Exception {
+        String path = dir.resolve("locky.txt").toString();
+        Path blocker = Files.createDirectories(dir.resolve("locky.txt.compact"));
+        Files.writeString(blocker.resolve("keep"), "x");
+        JournaledStorage s = new JournaledStorage(path, 1);
+        ArrayList<Task> list = new ArrayList<>();
+        Task t = new Todo("stuck", false);
+        list.add(t);
+        s.saveAdded(list, t);
+
+        assertThrows(IOException.class, s::flush);
+        s.flush();
+        assertTrue(Files.exists(dir.resolve("locky.txt.journal.sealed")), "sealed journal must survive");
+
+        Files.delete(blocker.resolve("keep"));
+        Files.delete(blocker);
+        Task u = new Todo("after", false);
+        list.add(u);
+        s.saveAdded(list, u);
+        s.save(list);
+        assertFalse(Files.exists(dir.resolve("locky.txt.journal.sealed")));
+        assertEquals(2, new JournaledStorage(path, 1).load().size());
+    }
+
+    @Test
+    void save_crashRightAfterSnapshotMoved_replaysNothingTwice() throws Exception {
+        String path = dir.resolve("locky.txt").toString();
+        JournaledStorage s = new JournaledStorage(path, Long.MAX_VALUE) {
+            @Override
+            protected void replaceAtomically(File source, File target) throws IOException {
+                super.replaceAtomically(source, target);
+                throw new IOException("crashed");
+            }
+        };
+        ArrayList<Task> list = new ArrayList<>();
+        for (String d : new String[] {"a", "b"}) {
+            Task t = new Todo(d, false);
+            list.add(t);
+            s.saveAdded(list, t);
+        }
+        list.remove(0);
+        s.saveDeleted(list, 0);
+
+        assertThrows(IOException.class, () -> s.save(list));
+        assertEquals("[[T][ ] b]", new JournaledStorage(path, Long.MAX_VALUE).load().toString());
+        assertFalse(Files.exists(dir.resolve("locky.txt.compact")));
+    }
+
+    @Test
+    void load_tornLastRecord_dropsItAndKeepsAppending() throws Exception {
+        String path = dir.resolve("locky.txt").toString();
+        JournaledStorage s = new JournaledStorage(path, Long.MAX_VALUE);
+        ArrayList<Task> list = new ArrayList<>();
+        for (String d : new String[] {"café", "b"}) {
+            Task t = new Todo(d, false);
+            list.add(t);
+            s.saveAdded(list, t);
+        }
+        // "X|12" cut short by a crash would delete the wrong task if applied
+        Files.write(dir.resolve("locky.txt.journal"), "X|1".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        JournaledStorage reopened = new JournaledStorage(path, Long.MAX_VALUE);
+        ArrayList<Task> loaded = reopened.load();
+        assertEquals("[[T][ ] café, [T][ ] b]", loaded.toString());
+        Task c = new Todo("c", false);
+        loaded.add(c);
+        reopened.saveAdded(loaded, c);
+        assertEquals(3, new JournaledStorage(path, Long.MAX_VALUE).load().size());
+    }
+}
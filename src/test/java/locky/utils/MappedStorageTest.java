@@ -0,0 +1,131 @@
+package locky.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import locky.tasks.Task;
+import locky.tasks.TaskList;
+import locky.tasks.Todo;
+
+class MappedStorageTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void loadLazily_skipsSameLinesAsEagerLoad() throws Exception {
+        Path path = dir.resolve("locky.txt");
+        Files.writeString(path, "T|0|a\nX|1|b\nT|1\nD|0|x\n"
+                + "E|1|sync|2019-12-02 0900|2019-12-02 1000\nT|0|trail|\n", StandardCharsets.UTF_8);
+
+        List<Task> eager = new Storage(path.toString()).load();
+        List<Task> lazy = new MappedStorage(path.toString()).loadLazily();
+
+        assertEquals(eager.toString(), lazy.toString());
+    }
+
+    @Test
+    void loadLazily_afterMutations_behavesLikeList() throws Exception {
+        Path path = dir.resolve("locky.txt");
+        Files.writeString(path, "T|0|a\nT|0|b\nT|0|c\n", StandardCharsets.UTF_8);
+
+        List<Task> lazy = new MappedStorage(path.toString()).loadLazily();
+        lazy.remove(0);
+        lazy.add(new Todo("d", false));
+
+        assertEquals(3, lazy.size());
+        assertEquals("b", lazy.get(0).getDescription());
+        assertEquals("d", lazy.get(2).getDescription());
+    }
+
+    @Test
+    void loadLazily_badDate_failsAtLoadLikeEagerLoad() throws Exception {
+        Path path = dir.resolve("locky.txt");
+        Files.writeString(path, "T|0|a\nD|0|x|not a date\n", StandardCharsets.UTF_8);
+
+        assertThrows(IllegalArgumentException.class, () -> new Storage(path.toString()).load());
+        assertThrows(IllegalArgumentException.class, () -> new MappedStorage(path.toString()).loadLazily());
+    }
+
+    @Test
+    void save_afterLazyLoad_keepsTasksNotYetDecoded() throws Exception {
+        Path path = dir.resolve("locky.txt");
+        Files.writeString(path, "T|0|a\nD|0|b|2019-12-02 1800\nT|1|c\n", StandardCharsets.UTF_8);
+        MappedStorage storage = new MappedStorage(path.toString());
+        List<Task> lazy = storage.loadLazily();
+        lazy.get(0).setDone();
+
+        storage.save(lazy);
+        Files.writeString(path, "T|0|overwritten\n", StandardCharsets.UTF_8);
+
+        assertEquals("[[T][X] a, [D][ ] b by: Dec 02 2019, 6:00PM, [T][X] c]", lazy.toString());
+    }
+
+    @Test
+    void loadLazily_datesInEveryStoredLayout_matchEagerLoad() throws Exception {
+        Path path = dir.resolve("locky.txt");
+        Files.writeString(path, "D|0|display|Dec 02 2019, 6:00PM\nD|0|input|2019-12-02 1800\n"
+                + "E|0|iso|2019-12-02T09:00|2019-12-02T10:00:30\nD|0|fraction|2019-12-02T09:00:00.5\n"
+                + "D|1|clamped|Feb 30 2019, 6:00PM\n", StandardCharsets.UTF_8);
+
+        List<Task> eager = new Storage(path.toString()).load();
+        List<Task> lazy = new MappedStorage(path.toString()).loadLazily();
+
+        assertEquals(eager.toString(), lazy.toString());
+    }
+
+    @Test
+    void loadLazily_badDateInEventEnd_failsAtLoad() throws Exception {
+        Path path = dir.resolve("locky.txt");
+        Files.writeString(path, "E|0|sync|2019-12-02 0900|2019-13-02 1000\n", StandardCharsets.UTF_8);
+
+        assertThrows(IllegalArgumentException.class, () -> new MappedStorage(path.toString()).loadLazily());
+    }
+
+    @Test
+    void asyncSave_releasesMappingOnCommandThread() throws Exception {
+        Path path = dir.resolve("locky.txt");
+        Files.writeString(path, "T|0|a\nD|0|b|Dec 02 2019, 6:00PM\nT|1|c\n", StandardCharsets.UTF_8);
+        MappedStorage mapped = new MappedStorage(path.toString());
+        AsyncStorage storage = new AsyncStorage(mapped, 60_000);
+        TaskList list = new TaskList(storage);
+        assertTrue(mapped.isMapped());
+
+        list.mark(1);
+        // the writer is still waiting, so only the command thread can have dropped the mapping
+        assertFalse(mapped.isMapped());
+        list.addTodo("d");
+        storage.flush();
+
+        assertEquals("1. [T][X] a\n2. [D][ ] b by: Dec 02 2019, 6:00PM\n3. [T][X] c\n4. [T][ ] d\n",
+                list.getListString());
+        assertEquals(4, new Storage(path.toString()).load().size());
+        assertEquals("T|1|a", Files.readAllLines(path).get(0));
+        storage.close();
+    }
+
+    @Test
+    void loadLazily_mappingNotAllowed_readsHeapCopyThatOutlivesFile() throws Exception {
+        Path path = dir.resolve("locky.txt");
+        Files.writeString(path, "T|0|a\nD|0|b|2019-12-02 1800\nT|1|c\n", StandardCharsets.UTF_8);
+        MappedStorage storage = new MappedStorage(path.toString(), false);
+        List<Task> lazy = storage.loadLazily();
+
+        // replacing the file under a mapping is what Windows refuses; a heap copy does not care
+        Path other = Files.writeString(dir.resolve("other.txt"), "T|0|other\n", StandardCharsets.UTF_8);
+        Files.move(other, path, StandardCopyOption.REPLACE_EXISTING);
+        assertEquals("[[T][ ] a, [D][ ] b by: Dec 02 2019, 6:00PM, [T][X] c]", lazy.toString());
+        storage.save(lazy);
+        assertEquals(3, new Storage(path.toString()).load().size());
+    }
+}
@@ -0,0 +1,94 @@
+package locky.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import locky.tasks.Todo;
+
+public class MetricsTest {
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    @AfterEach
+    public void resetMetrics() {
+        Metrics.reset();
+    }
+
+    @Test
+    public void bucketOf_boundsContainValue() {
+        for (long v : new long[] {0, 1, 15, 16, 17, 31, 32, 999, 1_000_000, 123_456_789_012L, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(v);
+            assertTrue(LatencyHistogram.lowestIn(bucket) <= v && v <= LatencyHistogram.highestIn(bucket), "v=" + v);
+        }
+    }
+
+    @Test
+    public void percentile_withinSixteenthOfTrueValue() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 10_000; v++) {
+            h.record(v * 1_000);
+        }
+        assertEquals(10_000, h.getCount());
+        assertEquals(10_000_000, h.getMax());
+        long p50 = h.getPercentile(50);
+        long p99 = h.getPercentile(99);
+        assertTrue(p50 >= 5_000_000 && p50 <= 5_000_000 * 17 / 16, "p50=" + p50);
+        assertTrue(p99 >= 9_900_000 && p99 <= 10_000_000, "p99=" + p99);
+        assertEquals(10_000_000, h.getPercentile(100));
+    }
+
+    @Test
+    public void record_concurrentThreads_loseNothing() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    Metrics.recordNanos("test.op", i);
+                    Metrics.count("test.bytes", 2);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        String report = Metrics.report();
+        assertTrue(report.contains("test.op") && report.contains(" 40000 "), report);
+        assertTrue(report.contains("test.bytes") && report.contains(" 80000 "), report);
+    }
+
+    @Test
+    public void meteredStorage_timesSavesAndCountsBytes() throws Exception {
+        Path file = dir.resolve("locky.txt");
+        Storage storage = new MeteredStorage(new Storage(file.toString()));
+        storage.save(List.of(new Todo("read book", false)));
+        storage.load();
+
+        String report = Metrics.report();
+        assertTrue(report.contains("storage.save ") && report.contains("storage.load "), report);
+        assertTrue(report.contains("storage.bytesWritten") && report.contains(" " + Files.size(file) + " "), report);
+    }
+
+    @Test
+    public void exportTo_writesReport() throws Exception {
+        Metrics.recordNanos("parse", 2_500);
+        Path out = dir.resolve("stats/locky-stats.txt");
+        Metrics.exportTo(out);
+
+        String text = Files.readString(out, StandardCharsets.UTF_8);
+        assertTrue(text.startsWith("# Locky metrics at "), text);
+        assertTrue(text.contains("parse") && text.contains("2.5us"), text);
+    }
+}
@@ -0,0 +1,99 @@
+package locky.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import locky.tasks.Deadline;
+import locky.tasks.Task;
+import locky.tasks.Todo;
+
+public class ParallelTextLoaderTest {
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    public void shutDownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void loadInto_skipsSameLinesAsSequentialLoad() throws Exception {
+        Path path = dir.resolve("locky.txt");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append(i % 7 == 0 ? "X|1|bad" : i % 11 == 0 ? "" : i % 13 == 0 ? "T|1" : "T|" + (i % 2) + "|t" + i)
+                    .append(i % 5 == 0 ? "\r\n" : "\n");
+        }
+        text.append("E|1|sync|2019-12-02 0900|2019-12-02 1000");
+        Files.writeString(path, text, StandardCharsets.UTF_8);
+        Storage storage = new Storage(path.toString());
+
+        List<Task> parallel = new ArrayList<>();
+        assertTrue(new ParallelTextLoader(storage, pool).loadInto(path.toFile(), parallel));
+
+        assertEquals(storage.load().toString(), parallel.toString());
+    }
+
+    @Test
+    public void loadInto_recordsPhaseTimesInMetrics() throws Exception {
+        Path path = dir.resolve("locky.txt");
+        Files.writeString(path, "T|0|read\nT|1|write\n", StandardCharsets.UTF_8);
+        Metrics.reset();
+
+        new ParallelTextLoader(new Storage(path.toString()), pool).loadInto(path.toFile(), new ArrayList<>());
+
+        String report = Metrics.report();
+        for (String phase : List.of("read", "parse", "stitch", "checksum")) {
+            assertTrue(report.contains("load.parallel." + phase), report);
+        }
+    }
+
+    @Test
+    public void loadInto_checksumTrailer_verifiedLikeSequentialLoad() throws Exception {
+        Path path = dir.resolve("locky.txt");
+        Storage storage = new Storage(path.toString());
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            tasks.add(i % 2 == 0 ? new Todo("todo " + i, false)
+                    : new Deadline("due " + i, true, LocalDateTime.of(2025, 1, 1, i % 24, 0)));
+        }
+        storage.save(tasks);
+
+        List<Task> loaded = new ArrayList<>();
+        assertTrue(new ParallelTextLoader(storage, pool).loadInto(path.toFile(), loaded));
+        assertEquals(tasks.toString(), loaded.toString());
+
+        Files.writeString(path, Files.readString(path).replace("todo 42", "todo 43"));
+        assertFalse(new ParallelTextLoader(storage, pool).loadInto(path.toFile(), new ArrayList<>()));
+    }
+
+    @Test
+    public void loadInto_badDates_throwsForEarliestLikeSequentialLoad() throws Exception {
+        Path path = dir.resolve("locky.txt");
+        Files.writeString(path, "T|0|a\n".repeat(200) + "D|0|x|first\n" + "T|0|b\n".repeat(200)
+                + "D|0|y|second\n", StandardCharsets.UTF_8);
+
+        List<Task> loaded = new ArrayList<>();
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+                new ParallelTextLoader(new Storage(path.toString()), pool).loadInto(path.toFile(), loaded));
+
+        assertTrue(e.getMessage().contains("\"first\""));
+        assertEquals(200, loaded.size());
+    }
+}
@@ -4,8 +4,12 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 
+import locky.commands.TodoCommand;
 import locky.error.LockyException;
 
 public class ParserTest {
@@ -48,4 +52,65 @@ public class ParserTest {
         assertEquals("event", pc.command());
         assertEquals("team sync /from 2019-12-02 0900 /to 2019-12-02 1000", pc.args());
     }
+
+    @Test
+    public void parseBetweenArgs_validWindow_success() throws Exception {
+        Parser.ParsedWindow pw = Parser.parseBetweenArgs("2019-12-02 0900 and 2019-12-03 1000");
+        assertEquals(LocalDateTime.of(2019, 12, 2, 9, 0), pw.start());
+        assertEquals(LocalDateTime.of(2019, 12, 3, 10, 0), pw.end());
+    }
+
+    @Test
+    public void parseDueArgs_missingBefore_throwsLockyException() {
+        assertThrows(LockyException.class, () -> Parser.parseDueArgs("2019-12-02 0900"));
+    }
+
+    @Test
+    public void parse_mixedCaseCommand_dispatches() throws Exception {
+        assertTrue(Parser.parse("  ToDo buy milk") instanceof TodoCommand);
+        LockyException ex = assertThrows(LockyException.class, () -> Parser.parse("todos buy milk"));
+        assertTrue(ex.getMessage().startsWith("Unknown command."));
+    }
+
+    @Test
+    public void parseDeadlineArgs_markerInsideDescription_splitsAtFirstMarker() throws Exception {
+        Parser.ParsedDeadline pd = Parser.parseDeadlineArgs("read /byte docs /by 2019-12-02 1800");
+        assertEquals("read /byte docs", pd.description());
+        assertEquals(LocalDateTime.of(2019, 12, 2, 18, 0), pd.by());
+    }
+
+    @Test
+    public void parseEventArgs_extraWhitespace_trimsEachPart() throws Exception {
+        Parser.ParsedEvent pe = Parser.parseEventArgs("team  sync\t/from  2019-12-02 0900\t /to 2019-12-02 1000 ");
+        assertEquals("team  sync", pe.description());
+        assertEquals(LocalDateTime.of(2019, 12, 2, 9, 0), pe.start());
+        assertEquals(LocalDateTime.of(2019, 12, 2, 10, 0), pe.end());
+    }
+
+    @Test
+    public void parseSelection_rangesAndLists_collectsRanges() throws Exception {
+        Parser.ParsedSelection sel = Parser.parseSelection("1-3, 7,9 - 10", "mark");
+        assertEquals(List.of(new Parser.IndexRange(1, 3), new Parser.IndexRange(7, 7),
+                new Parser.IndexRange(9, 10)), sel.ranges());
+        assertEquals("book", Parser.parseSelection("find: book", "delete").query());
+    }
+
+    @Test
+    public void parseSelection_loneNegativeNumber_isOneTaskNotBadList() throws Exception {
+        assertEquals(List.of(new Parser.IndexRange(-1, -1)), Parser.parseSelection(" -1 ", "mark").ranges());
+    }
+
+    @Test
+    public void parseSelection_notASelection_keepsNotANumberMessage() {
+        LockyException ex = assertThrows(LockyException.class, () -> Parser.parseSelection("two", "mark"));
+        assertEquals("Not a number: \"two\". Try \"mark 2\".", ex.getMessage());
+    }
+
+    @Test
+    public void parseListArgs_pageAndLimit_success() throws Exception {
+        assertEquals(new Parser.ParsedPage(3, Parser.DEFAULT_PAGE_SIZE), Parser.parseListArgs("page 3"));
+        assertEquals(new Parser.ParsedPage(1, 50), Parser.parseListArgs("--limit 50"));
+        assertEquals(new Parser.ParsedPage(2, 10), Parser.parseListArgs("page 2 --limit 10"));
+        assertThrows(LockyException.class, () -> Parser.parseListArgs("page two"));
+    }
 }
@@ -8,11 +8,17 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import locky.tasks.Deadline;
 import locky.tasks.Event;
@@ -20,6 +26,8 @@ import locky.tasks.Task;
 import locky.tasks.Todo;
 
 class StorageTest {
+    @TempDir
+    Path dir;
 
     /**
      * Helper to invoke the private parseLine(String) method
@@ -103,4 +111,35 @@ class StorageTest {
         assertThrows(IllegalArgumentException.class, () -> parseLine(s, "E|0|mtg|2019/12/02 09:00|2019-12-02 1000"));
         assertThrows(IllegalArgumentException.class, () -> parseLine(s, "E|0|mtg|2019-12-02 0900|02-12-2019 10:00"));
     }
+
+    @Test
+    void save_thenLoad_roundTripsWithoutLeftoverTempFile() throws Exception {
+        Path path = dir.resolve("locky.txt");
+        Storage s = new Storage(path.toString());
+        ArrayList<Task> list = new ArrayList<>();
+        list.add(new Todo("fish band prac", true));
+        list.add(new Deadline("submit report", false, LocalDateTime.of(2019, 12, 2, 18, 0)));
+        s.save(list);
+
+        assertFalse(Files.exists(dir.resolve("locky.txt.tmp")));
+        ArrayList<Task> loaded = s.load();
+        assertEquals(2, loaded.size());
+        assertEquals(list.get(1).toString(), loaded.get(1).toString());
+    }
+
+    @Test
+    void load_tamperedFile_throwsAndKeepsCorruptCopy() throws Exception {
+        Path path = dir.resolve("locky.txt");
+        Storage s = new Storage(path.toString());
+        ArrayList<Task> list = new ArrayList<>();
+        list.add(new Todo("fish band prac", false));
+        s.save(list);
+
+        String content = Files.readString(path, StandardCharsets.UTF_8);
+        Files.writeString(path, content.replace("T|0|", "T|1|"), StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class, s::load);
+        assertTrue(Files.exists(dir.resolve("locky.txt.corrupt")));
+        assertFalse(Files.exists(path));
+    }
 }